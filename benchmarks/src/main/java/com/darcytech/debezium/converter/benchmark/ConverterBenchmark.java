@@ -0,0 +1,194 @@
+package com.darcytech.debezium.converter.benchmark;
+
+import com.darcytech.debezium.converter.MySqlDateTimeConverter;
+import io.debezium.spi.converter.CustomConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.OptionalInt;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比converterFor注册的converter和直接使用DateTimeFormatter的吞吐量，
+ * 加上-prof gc可以看到每次转换分配的内存
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConverterBenchmark {
+
+    private static final int SIZE = 1024;
+    private static final int MASK = SIZE - 1;
+
+    /**
+     * iso: 默认的ISO格式；plain/micros: 能编译的pattern；text: 无法编译，回退到DateTimeFormatter
+     */
+    @Param({"iso", "plain", "micros", "text"})
+    public String format;
+
+    @Param({"UTC+8", "America/New_York"})
+    public String zone;
+
+    /**
+     * 输入值的小数秒位数
+     */
+    @Param({"0", "3", "6"})
+    public int precision;
+
+    @Param({"false", "true"})
+    public boolean tables;
+
+    private CustomConverter.Converter dateConverter;
+    private CustomConverter.Converter timeConverter;
+    private CustomConverter.Converter datetimeConverter;
+    private CustomConverter.Converter timestampConverter;
+
+    private DateTimeFormatter dateFormatter;
+    private DateTimeFormatter timeFormatter;
+    private DateTimeFormatter datetimeFormatter;
+    private ZoneId zoneId;
+
+    private final LocalDate[] dates = new LocalDate[SIZE];
+    private final Integer[] epochDays = new Integer[SIZE];
+    private final Duration[] durations = new Duration[SIZE];
+    private final LocalDateTime[] datetimes = new LocalDateTime[SIZE];
+    private final ZonedDateTime[] timestamps = new ZonedDateTime[SIZE];
+    private int index;
+
+    @Setup
+    public void setup() {
+        Properties props = new Properties();
+        switch (format) {
+            case "plain":
+                setFormats(props, "yyyy-MM-dd", "HH:mm:ss", "yyyy-MM-dd HH:mm:ss");
+                break;
+            case "micros":
+                setFormats(props, "yyyy-MM-dd", "HH:mm:ss.SSSSSS", "yyyy-MM-dd HH:mm:ss.SSSSSS");
+                break;
+            case "text":
+                setFormats(props, "dd MMM yyyy", "hh:mm:ss a", "dd MMM yyyy HH:mm:ss");
+                break;
+            default:
+                dateFormatter = DateTimeFormatter.ISO_DATE;
+                timeFormatter = DateTimeFormatter.ISO_TIME;
+                datetimeFormatter = DateTimeFormatter.ISO_DATE_TIME;
+        }
+        props.setProperty("format.timestamp.zone", zone);
+        if (tables) {
+            props.setProperty("date.table.range", "1970-01-01..2100-12-31");
+            props.setProperty("time.table.enabled", "true");
+            props.setProperty("datetime.table.enabled", "true");
+            props.setProperty("timestamp.table.enabled", "true");
+        }
+        MySqlDateTimeConverter converter = new MySqlDateTimeConverter();
+        converter.configure(props);
+        dateConverter = register(converter, "DATE");
+        timeConverter = register(converter, "TIME");
+        datetimeConverter = register(converter, "DATETIME");
+        timestampConverter = register(converter, "TIMESTAMP");
+        zoneId = ZoneId.of(zone);
+
+        Random random = new Random(42);
+        long firstSecond = LocalDate.of(2000, 1, 1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        long lastSecond = LocalDate.of(2030, 1, 1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        int nanoUnit = (int) Math.pow(10, 9 - precision);
+        for (int i = 0; i < SIZE; i++) {
+            long second = firstSecond + (long) (random.nextDouble() * (lastSecond - firstSecond));
+            int nano = precision == 0 ? 0 : random.nextInt(1_000_000_000 / nanoUnit) * nanoUnit;
+            LocalDateTime datetime = LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC);
+            dates[i] = datetime.toLocalDate();
+            epochDays[i] = (int) dates[i].toEpochDay();
+            durations[i] = Duration.ofSeconds(datetime.toLocalTime().toSecondOfDay(), nano);
+            datetimes[i] = datetime;
+            timestamps[i] = datetime.atZone(ZoneOffset.UTC);
+        }
+    }
+
+    private void setFormats(Properties props, String date, String time, String datetime) {
+        props.setProperty("format.date", date);
+        props.setProperty("format.time", time);
+        props.setProperty("format.datetime", datetime);
+        props.setProperty("format.timestamp", datetime);
+        dateFormatter = DateTimeFormatter.ofPattern(date);
+        timeFormatter = DateTimeFormatter.ofPattern(time);
+        datetimeFormatter = DateTimeFormatter.ofPattern(datetime);
+    }
+
+    private static CustomConverter.Converter register(MySqlDateTimeConverter converter, String sqlType) {
+        StubRegistration registration = new StubRegistration();
+        converter.converterFor(new StubColumn(sqlType, OptionalInt.empty()), registration);
+        return registration.converter();
+    }
+
+    private int next() {
+        return index++ & MASK;
+    }
+
+    @Benchmark
+    public Object date() {
+        return dateConverter.convert(dates[next()]);
+    }
+
+    @Benchmark
+    public Object dateEpochDay() {
+        return dateConverter.convert(epochDays[next()]);
+    }
+
+    @Benchmark
+    public Object time() {
+        return timeConverter.convert(durations[next()]);
+    }
+
+    @Benchmark
+    public Object datetime() {
+        return datetimeConverter.convert(datetimes[next()]);
+    }
+
+    @Benchmark
+    public Object timestamp() {
+        return timestampConverter.convert(timestamps[next()]);
+    }
+
+    @Benchmark
+    public Object baselineDate() {
+        return dateFormatter.format(dates[next()]);
+    }
+
+    @Benchmark
+    public Object baselineTime() {
+        Duration duration = durations[next()];
+        return timeFormatter.format(LocalTime.ofSecondOfDay(duration.getSeconds()).withNano(duration.getNano()));
+    }
+
+    @Benchmark
+    public Object baselineDatetime() {
+        return datetimeFormatter.format(datetimes[next()]);
+    }
+
+    @Benchmark
+    public Object baselineTimestamp() {
+        return datetimeFormatter.format(timestamps[next()].withZoneSameInstant(zoneId).toLocalDateTime());
+    }
+}
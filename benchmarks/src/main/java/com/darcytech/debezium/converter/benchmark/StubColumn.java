@@ -0,0 +1,74 @@
+package com.darcytech.debezium.converter.benchmark;
+
+import io.debezium.spi.converter.RelationalColumn;
+
+import java.util.OptionalInt;
+
+/**
+ * 只提供converterFor需要用到的列信息
+ */
+final class StubColumn implements RelationalColumn {
+
+    private final String typeName;
+    private final OptionalInt length;
+
+    StubColumn(String typeName, OptionalInt length) {
+        this.typeName = typeName;
+        this.length = length;
+    }
+
+    @Override
+    public int jdbcType() {
+        return 0;
+    }
+
+    @Override
+    public int nativeType() {
+        return 0;
+    }
+
+    @Override
+    public String typeName() {
+        return typeName;
+    }
+
+    @Override
+    public String typeExpression() {
+        return typeName;
+    }
+
+    @Override
+    public OptionalInt length() {
+        return length;
+    }
+
+    @Override
+    public OptionalInt scale() {
+        return OptionalInt.empty();
+    }
+
+    @Override
+    public boolean isOptional() {
+        return true;
+    }
+
+    @Override
+    public Object defaultValue() {
+        return null;
+    }
+
+    @Override
+    public boolean hasDefaultValue() {
+        return false;
+    }
+
+    @Override
+    public String name() {
+        return typeName.toLowerCase() + "_column";
+    }
+
+    @Override
+    public String dataCollection() {
+        return "benchmark.table";
+    }
+}
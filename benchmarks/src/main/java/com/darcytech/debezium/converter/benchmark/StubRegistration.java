@@ -0,0 +1,21 @@
+package com.darcytech.debezium.converter.benchmark;
+
+import io.debezium.spi.converter.CustomConverter;
+import org.apache.kafka.connect.data.SchemaBuilder;
+
+/**
+ * 记住converterFor注册的converter
+ */
+final class StubRegistration implements CustomConverter.ConverterRegistration<SchemaBuilder> {
+
+    private CustomConverter.Converter converter;
+
+    @Override
+    public void register(SchemaBuilder fieldSchema, CustomConverter.Converter converter) {
+        this.converter = converter;
+    }
+
+    CustomConverter.Converter converter() {
+        return converter;
+    }
+}
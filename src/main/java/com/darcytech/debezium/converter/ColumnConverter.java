@@ -0,0 +1,155 @@
+package com.darcytech.debezium.converter;
+
+import io.debezium.spi.converter.CustomConverter;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 每一列的converter，先把输入换算成(秒, 纳秒)作为key，依次查找：
+ * <ol>
+ * <li>这一列上一次的输入和输出。binlog里同一批写入的行通常有相同的create_time/update_time，
+ * 连续相同的值直接返回上一次格式化好的字符串</li>
+ * <li>所有列共享的{@link TemporalCache}</li>
+ * </ol>
+ * 都没有命中时才真正去格式化。开启了指标时，还会统计转换的数量、耗时和这一列上一次输入的命中次数
+ */
+final class ColumnConverter implements CustomConverter.Converter {
+
+    private final CustomConverter.Converter delegate;
+    private final boolean lastValueEnabled;
+    private final TemporalCache cache;
+    /**
+     * 区分不同的格式化方式，共享缓存里相同的(秒, 纳秒)在不同格式下的结果不同
+     */
+    private final long formatId;
+    /**
+     * Long类型输入的单位
+     */
+    private final EpochUnit unit;
+    private final TypeMetrics metrics;
+    /**
+     * 只有开启了指标才统计，通过{@link ConverterMetrics#getColumns()}查看
+     */
+    private final LongAdder hits;
+    private final LongAdder misses;
+    /**
+     * Entry不可变，整体替换，多个线程同时调用时也不会读到不一致的输入和输出
+     */
+    private volatile Entry last;
+
+    ColumnConverter(CustomConverter.Converter delegate, boolean lastValueEnabled, TemporalCache cache, long formatId,
+                    EpochUnit unit, TypeMetrics metrics) {
+        this.delegate = delegate;
+        this.lastValueEnabled = lastValueEnabled;
+        this.cache = cache;
+        this.formatId = formatId;
+        this.unit = unit;
+        this.metrics = metrics;
+        this.hits = metrics == null ? null : new LongAdder();
+        this.misses = metrics == null ? null : new LongAdder();
+    }
+
+    @Override
+    public Object convert(Object input) {
+        if (metrics == null) {
+            return convertCached(input);
+        }
+        long start = System.nanoTime();
+        Object value = convertCached(input);
+        metrics.record(input, value, System.nanoTime() - start);
+        return value;
+    }
+
+    private Object convertCached(Object input) {
+        long seconds;
+        int nano;
+        boolean jdbc = false;
+        if (input instanceof LocalDateTime) {
+            LocalDateTime datetime = (LocalDateTime) input;
+            seconds = datetime.toEpochSecond(ZoneOffset.UTC);
+            nano = datetime.getNano();
+        } else if (input instanceof ZonedDateTime) {
+            ZonedDateTime zonedDateTime = (ZonedDateTime) input;
+            seconds = zonedDateTime.toEpochSecond();
+            nano = zonedDateTime.getNano();
+        } else if (input instanceof Duration) {
+            Duration duration = (Duration) input;
+            seconds = duration.getSeconds();
+            nano = duration.getNano();
+        } else if (input instanceof LocalDate) {
+            seconds = ((LocalDate) input).toEpochDay();
+            nano = 0;
+        } else if (input instanceof Integer) {
+            seconds = (Integer) input;
+            nano = 0;
+        } else if (input instanceof Long) {
+            long value = (Long) input;
+            seconds = unit.seconds(value);
+            nano = unit.nanos(value);
+        } else if (input instanceof java.util.Date) {
+            // 快照阶段的java.sql.Date/Time/Timestamp，key是UTC的秒数，和上面换算出来的秒数含义不同
+            long millis = ((java.util.Date) input).getTime();
+            seconds = Math.floorDiv(millis, 1000L);
+            nano = input instanceof Timestamp
+                    ? ((Timestamp) input).getNanos()
+                    : (int) Math.floorMod(millis, 1000L) * 1_000_000;
+            jdbc = true;
+        } else {
+            return delegate.convert(input);
+        }
+        if (lastValueEnabled) {
+            Entry entry = last;
+            if (entry != null && entry.seconds == seconds && entry.nano == nano && entry.jdbc == jdbc) {
+                if (hits != null) {
+                    hits.increment();
+                }
+                return entry.value;
+            }
+            if (misses != null) {
+                misses.increment();
+            }
+        }
+        Object value = cache == null ? null : cache.get(formatId, jdbc, seconds, nano);
+        if (value == null) {
+            value = delegate.convert(input);
+            if (cache != null && value != null) {
+                cache.put(formatId, jdbc, seconds, nano, value);
+            }
+        }
+        if (lastValueEnabled) {
+            last = new Entry(seconds, nano, jdbc, value);
+        }
+        return value;
+    }
+
+    /**
+     * 命中上一次输入的次数，没有开启指标时是0
+     */
+    long hitCount() {
+        return hits == null ? 0 : hits.sum();
+    }
+
+    long missCount() {
+        return misses == null ? 0 : misses.sum();
+    }
+
+    private static final class Entry {
+        private final long seconds;
+        private final int nano;
+        private final boolean jdbc;
+        private final Object value;
+
+        private Entry(long seconds, int nano, boolean jdbc, Object value) {
+            this.seconds = seconds;
+            this.nano = nano;
+            this.jdbc = jdbc;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.darcytech.debezium.converter;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一种输出格式：DateTimeFormatter、编译后的pattern以及预先格式化好的表。
+ * 按列的小数秒精度派生出的格式会被缓存，相同精度的列共享同一个实例
+ */
+final class ColumnFormat {
+
+    /**
+     * 共享缓存里区分不同输出的id：小于FIRST_ID的是不经过ColumnFormat的固定输出，从FIRST_ID开始按创建顺序分配给ColumnFormat。
+     * 缓存属于一个配置，同一个配置的输出模式只有一种，同一类型的logical、compact、epoch和DATE的字符串输出可以共用一个id
+     */
+    static final long DATE_ID = 1;
+    static final long DATETIME_ID = 2;
+    static final long TIMESTAMP_ID = 3;
+    static final long TIME_ID = 4;
+    /**
+     * compact模式下带毫秒的列输出yyyyMMddHHmmssSSS，和不带毫秒的列不能共用
+     */
+    static final long DATETIME_MILLIS_ID = 5;
+    static final long TIMESTAMP_MILLIS_ID = 6;
+    private static final long FIRST_ID = 0x8000;
+
+    private static final AtomicLong NEXT_ID = new AtomicLong(FIRST_ID);
+
+    /**
+     * 格式放在进程内的弱引用注册表里，回收后会重新创建，同一个配置里可能同时有新旧两批格式，id不能循环使用
+     */
+    final long id = NEXT_ID.getAndIncrement();
+    final DateTimeFormatter formatter;
+    /**
+     * 为null时表示pattern无法编译，直接使用formatter
+     */
+    final DateTimePattern pattern;
+    final SecondOfDayTable timeTable;
+    final DateTimeTable dateTimeTable;
+    private final Map<Integer, ColumnFormat> precisions = new ConcurrentHashMap<>();
+
+    ColumnFormat(DateTimeFormatter formatter, DateTimePattern pattern) {
+        this(formatter, pattern, null, null);
+    }
+
+    private ColumnFormat(DateTimeFormatter formatter, DateTimePattern pattern, SecondOfDayTable timeTable,
+                         DateTimeTable dateTimeTable) {
+        this.formatter = formatter;
+        this.pattern = pattern;
+        this.timeTable = timeTable;
+        this.dateTimeTable = dateTimeTable;
+    }
+
+    ColumnFormat withTimeTable(SecondOfDayTable table) {
+        return new ColumnFormat(formatter, pattern, table, dateTimeTable);
+    }
+
+    ColumnFormat withDateTimeTable(DateTimeTable table) {
+        return new ColumnFormat(formatter, pattern, timeTable, table);
+    }
+
+    /**
+     * 小数秒固定输出digits位，trim为true时去掉末尾的0，digits为0时不输出小数秒。
+     * pattern无法编译或者没有秒时返回自身
+     */
+    ColumnFormat withPrecision(int digits, boolean trim, long[] tableRange) {
+        if (pattern == null) {
+            return this;
+        }
+        return precisions.computeIfAbsent(trim ? -digits - 1 : digits, key -> {
+            DateTimePattern derived = pattern.withFraction(digits, trim);
+            if (derived == pattern) {
+                return this;
+            }
+            SecondOfDayTable times = timeTable == null ? null : timeTable.withPattern(derived);
+            DateTimeTable dateTimes = dateTimeTable == null ? null : dateTimeTable.withPattern(derived, tableRange);
+            return new ColumnFormat(derived.toFormatter(), derived, times, dateTimes);
+        });
+    }
+}
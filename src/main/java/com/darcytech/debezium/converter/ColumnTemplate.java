@@ -0,0 +1,80 @@
+package com.darcytech.debezium.converter;
+
+import io.debezium.spi.converter.CustomConverter;
+import io.debezium.spi.converter.RelationalColumn;
+import org.apache.kafka.connect.data.SchemaBuilder;
+
+/**
+ * converterFor按列的形状(类型、长度、精度、是否可空)缓存的注册结果。
+ * Debezium启动和每次DDL之后都会重放schema历史，为每张表的每一列调用converterFor，形状相同的列复用同一个converter
+ */
+final class ColumnTemplate {
+
+    /**
+     * 只用来复制出每一列自己的SchemaBuilder，Debezium会在返回的builder上继续设置默认值和参数，不能共用
+     */
+    private final SchemaBuilder schema;
+    /**
+     * 不带默认值、零值日期处理和{@link ColumnConverter}的converter
+     */
+    final CustomConverter.Converter converter;
+    final long formatId;
+    final EpochUnit unit;
+    final TypeMetrics metrics;
+    final boolean optional;
+    /**
+     * 列没有默认值时的零值日期
+     */
+    final Object zeroDate;
+
+    ColumnTemplate(SchemaBuilder schema, CustomConverter.Converter converter, long formatId,
+                   EpochUnit unit, TypeMetrics metrics, boolean optional, Object zeroDate) {
+        this.schema = schema;
+        this.converter = converter;
+        this.formatId = formatId;
+        this.unit = unit;
+        this.metrics = metrics;
+        this.optional = optional;
+        this.zeroDate = zeroDate;
+    }
+
+    SchemaBuilder schemaBuilder() {
+        SchemaBuilder builder = new SharedSchemaBuilder(schema.type()).name(schema.name()).version(schema.version());
+        return optional ? builder.optional() : builder;
+    }
+
+    static final class Key {
+        private final String sqlType;
+        private final int length;
+        private final int scale;
+        private final boolean optional;
+
+        Key(String sqlType, RelationalColumn column) {
+            this.sqlType = sqlType;
+            this.length = column.length().orElse(-1);
+            this.scale = column.scale().orElse(-1);
+            this.optional = column.isOptional();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return length == key.length && scale == key.scale && optional == key.optional
+                    && sqlType.equals(key.sqlType);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = sqlType.hashCode();
+            result = 31 * result + length;
+            result = 31 * result + scale;
+            return 31 * result + (optional ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.darcytech.debezium.converter;
+
+import io.debezium.spi.converter.RelationalColumn;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import javax.management.JMException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * {@link MySqlDateTimeConverter}的配置以及由配置派生出的格式、预先格式化好的表和时区索引。
+ * <p>
+ * 所有字段都是final，构造完成后不再修改，每一列的converter在注册时捕获同一个实例，
+ * 多个snapshot线程同时转换时不需要加锁。剩下的可变状态(缓存、时区索引上一次命中的位置、指标)本身是线程安全的。
+ * 格式、预先格式化好的表和时区索引通过{@link FormatRegistry}在同一个进程的多个connector之间共享
+ */
+@Slf4j
+final class ConverterConfig {
+
+    private static final String DEFAULT_DATE_TABLE_RANGE = "1970-01-01..2100-12-31";
+    private static final String DEFAULT_ZONE_YEAR_RANGE = "1970..2100";
+    private static final String DEFAULT_PRECISION_MODE = "adaptive_time_microseconds";
+    /**
+     * 1582-10-15，java.util.Date在这之前用的是儒略历，和java.time的结果不一样
+     */
+    private static final long GREGORIAN_CUTOVER = -12219292800L;
+    private static final int LOGICAL_DATE_SLOTS = 1024;
+    private static final ColumnFormat ISO_DATE = new ColumnFormat(DateTimeFormatter.ISO_DATE, DateTimePattern.ISO_DATE);
+    private static final ColumnFormat ISO_TIME = new ColumnFormat(DateTimeFormatter.ISO_TIME, DateTimePattern.ISO_TIME);
+    private static final ColumnFormat ISO_DATETIME = new ColumnFormat(DateTimeFormatter.ISO_DATE_TIME,
+            DateTimePattern.ISO_DATE_TIME);
+    private static final ColumnFormat ISO_TIMESTAMP = new ColumnFormat(DateTimeFormatter.ISO_DATE_TIME,
+            DateTimePattern.ISO_DATE_TIME);
+
+    /**
+     * DATE的格式，pattern为null时表示pattern无法编译，直接使用formatter。
+     * 必须持有{@link FormatRegistry}返回的实例本身，注册表只持有弱引用，没有配置引用它时会被回收
+     */
+    final ColumnFormat dateFormat;
+    /**
+     * 预先格式化好的DATE字符串，只有配置了date.table.range才会创建
+     */
+    final EpochDayTable dateTable;
+    final long[] dateTableRange;
+
+    /**
+     * TIME、DATETIME、TIMESTAMP的格式，配置了time.table.enabled、datetime.table.enabled、timestamp.table.enabled
+     * 时带有预先格式化好的表
+     */
+    final ColumnFormat timeFormat;
+    final ColumnFormat datetimeFormat;
+    final ColumnFormat timestampFormat;
+    /**
+     * 小数秒的输出方式：pattern按配置的格式输出，column按列定义的精度输出，column_trim在列精度内去掉末尾的0
+     */
+    final String fractionMode;
+    /**
+     * 输出方式：string输出格式化后的字符串；epoch_millis、epoch_micros把DATETIME、TIMESTAMP输出成时间戳；
+     * compact输出成yyyyMMdd、HHmmss、yyyyMMddHHmmss[SSS]形式的整数；
+     * logical输出成Kafka Connect的Date、Time、Timestamp逻辑类型
+     */
+    final String outputMode;
+    /**
+     * 输出时间戳的单位，outputMode为string时是null
+     */
+    final EpochUnit outputUnit;
+    /**
+     * logical模式下DATE的java.util.Date，按epochDay直接映射，同一天的值复用同一个实例
+     */
+    private final AtomicReferenceArray<java.util.Date> logicalDates = new AtomicReferenceArray<>(LOGICAL_DATE_SLOTS);
+    /**
+     * converterFor按列的形状缓存的注册结果，依赖这份配置，所以跟着配置一起替换
+     */
+    final Map<ColumnTemplate.Key, ColumnTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * 每一列的converter是否记住上一次的输入和输出
+     */
+    final boolean lastValueEnabled;
+    /**
+     * 所有列共享的格式化结果缓存，只有配置了cache.size才会创建
+     */
+    final TemporalCache cache;
+    /**
+     * JMX指标，只有配置了metrics.enabled=true才会注册
+     */
+    final ConverterMetrics metrics;
+
+    /**
+     * 与connector的time.precision.mode保持一致，决定Long类型的输入是毫秒、微秒还是纳秒
+     */
+    final String precisionMode;
+    /**
+     * 为true时所有列的schema都是optional，与之前的版本保持一致；否则NOT NULL的列使用required的schema
+     */
+    final boolean optionalAlways;
+    /**
+     * 零值日期的输出方式：null、epoch(1970-01-01 00:00:00)或者literal(输出zeroDateLiteral、zeroDatetimeLiteral)
+     */
+    final String zeroDateMode;
+    final String zeroDateLiteral;
+    final String zeroDatetimeLiteral;
+
+    private final ZoneId timestampZoneId;
+    /**
+     * timestampZoneId是固定偏移量(比如UTC+8)时，直接在epochSecond上加上这个偏移量，不再查ZoneRules
+     */
+    private final ZoneOffset timestampFixedOffset;
+    /**
+     * timestampZoneId有夏令时(比如America/New_York)时，预先展开的切换点索引
+     */
+    private final ZoneOffsetIndex timestampOffsetIndex;
+    /**
+     * 输出时间戳时DATETIME的墙上时间所在的时区，没有配置format.datetime.zone时与timestampZoneId相同
+     */
+    private final ZoneId datetimeZoneId;
+    /**
+     * 只有输出时间戳或者logical类型时才会创建
+     */
+    private final ZoneOffsetIndex datetimeOffsetIndex;
+    /**
+     * JDBC返回的java.sql.Date/Time/Timestamp是按JVM默认时区解释的
+     */
+    private final ZoneOffsetIndex jdbcOffsetIndex;
+
+    private ConverterConfig(Builder builder) {
+        this.dateFormat = builder.dateFormat;
+        this.dateTable = builder.dateTable;
+        this.dateTableRange = EpochDayTable.parseRange(builder.dateTableRange);
+        this.timeFormat = builder.timeFormat;
+        this.datetimeFormat = builder.datetimeFormat;
+        this.timestampFormat = builder.timestampFormat;
+        this.fractionMode = builder.fractionMode;
+        this.outputMode = builder.outputMode;
+        this.outputUnit = builder.outputUnit;
+        this.lastValueEnabled = builder.lastValueEnabled;
+        this.cache = builder.cache;
+        this.metrics = builder.metricsConnector == null ? null
+                : registerMetrics(builder.metricsConnector, builder.metricsName, this);
+        this.precisionMode = builder.precisionMode;
+        this.optionalAlways = builder.optionalAlways;
+        this.zeroDateMode = builder.zeroDateMode;
+        this.zeroDateLiteral = builder.zeroDateLiteral;
+        this.zeroDatetimeLiteral = builder.zeroDatetimeLiteral;
+        this.timestampZoneId = builder.timestampZoneId;
+        this.timestampFixedOffset = builder.timestampFixedOffset;
+        this.timestampOffsetIndex = builder.timestampOffsetIndex;
+        this.datetimeZoneId = builder.datetimeZoneId == null ? builder.timestampZoneId : builder.datetimeZoneId;
+        this.datetimeOffsetIndex = outputUnit != null || "logical".equals(outputMode)
+                ? zoneIndex(datetimeZoneId, builder.zoneYearRange) : null;
+        this.jdbcOffsetIndex = zoneIndex(ZoneId.systemDefault(), DEFAULT_ZONE_YEAR_RANGE);
+    }
+
+    /**
+     * 解析converter的配置，配置不合法时抛出IllegalArgumentException或者DateTimeException
+     */
+    static ConverterConfig parse(Properties props) {
+        Builder b = new Builder();
+        readProps(props, "format.date", p -> b.dateFormat = sharedFormat("format.date", p, true, false));
+        readProps(props, "format.time", p -> b.timeFormat = sharedFormat("format.time", p, false, true));
+        readProps(props, "format.datetime", p -> b.datetimeFormat = sharedFormat("format.datetime", p, true, true));
+        readProps(props, "format.timestamp", p ->
+                b.timestampFormat = sharedFormat("format.timestamp", p, true, true));
+        readProps(props, "format.timestamp.zone", z -> {
+            b.timestampZoneId = ZoneId.of(z);
+            b.timestampFixedOffset = fixedOffset(b.timestampZoneId);
+            b.timestampOffsetIndex = offsetIndex(b.timestampZoneId, DEFAULT_ZONE_YEAR_RANGE);
+        });
+        readProps(props, "format.timestamp.zone.years", y -> {
+            b.timestampOffsetIndex = offsetIndex(b.timestampZoneId, y);
+            b.zoneYearRange = y;
+        });
+        readProps(props, "format.datetime.zone", z -> b.datetimeZoneId = ZoneId.of(z));
+        readProps(props, "date.table.range", r -> {
+            ColumnFormat format = b.dateFormat;
+            b.dateTable = FormatRegistry.shared(Arrays.asList("date.table.range", format, r),
+                    () -> EpochDayTable.build(r, epochDay -> {
+                        long date = EpochCalendar.civilDate(epochDay);
+                        return formatDate(format.pattern, format.formatter,
+                                EpochCalendar.year(date), EpochCalendar.month(date), EpochCalendar.day(date));
+                    }));
+            b.dateTableRange = r;
+        });
+        readProps(props, "time.table.enabled", e -> {
+            if (Boolean.parseBoolean(e)) {
+                ColumnFormat format = b.timeFormat;
+                b.timeFormat = FormatRegistry.shared(Arrays.asList("time.table.enabled", format),
+                        () -> format.withTimeTable(buildTimeTable(format.pattern)));
+            }
+        });
+        readProps(props, "datetime.table.enabled", e -> {
+            if (Boolean.parseBoolean(e)) {
+                b.datetimeFormat = withDateTimeTable(b.datetimeFormat, b.dateTableRange, "format.datetime");
+            }
+        });
+        readProps(props, "time.precision.mode", m -> {
+            if (!"adaptive".equals(m) && !"adaptive_time_microseconds".equals(m) && !"connect".equals(m)) {
+                throw new IllegalArgumentException("unknown time.precision.mode " + m);
+            }
+            b.precisionMode = m;
+        });
+        readProps(props, "schema.optional.always", e -> b.optionalAlways = Boolean.parseBoolean(e));
+        readProps(props, "zero.date.mode", m -> {
+            if (!"null".equals(m) && !"epoch".equals(m) && !"literal".equals(m)) {
+                throw new IllegalArgumentException("unknown zero.date.mode " + m);
+            }
+            b.zeroDateMode = m;
+        });
+        readProps(props, "zero.date.literal", l -> b.zeroDateLiteral = l);
+        readProps(props, "zero.datetime.literal", l -> b.zeroDatetimeLiteral = l);
+        readProps(props, "column.last.value.enabled", e -> b.lastValueEnabled = Boolean.parseBoolean(e));
+        readProps(props, "cache.size", c -> {
+            int size = Integer.parseInt(c);
+            b.cache = size > 0 ? new TemporalCache(size) : null;
+        });
+        readProps(props, "metrics.enabled", e -> {
+            if (Boolean.parseBoolean(e)) {
+                b.metricsConnector = metricsConnector(props);
+                b.metricsName = props.getProperty("metrics.name", "datetime");
+            }
+        });
+        readProps(props, "timestamp.table.enabled", e -> {
+            if (Boolean.parseBoolean(e)) {
+                b.timestampFormat = withDateTimeTable(b.timestampFormat, b.dateTableRange, "format.timestamp");
+            }
+        });
+        readProps(props, "fraction.mode", m -> {
+            if (!"pattern".equals(m) && !"column".equals(m) && !"column_trim".equals(m)) {
+                throw new IllegalArgumentException("unknown fraction.mode " + m);
+            }
+            b.fractionMode = m;
+        });
+        readProps(props, "output.mode", m -> {
+            if ("epoch_millis".equals(m)) {
+                b.outputUnit = EpochUnit.MILLIS;
+            } else if ("epoch_micros".equals(m)) {
+                b.outputUnit = EpochUnit.MICROS;
+            } else if (!"string".equals(m) && !"compact".equals(m) && !"logical".equals(m)) {
+                throw new IllegalArgumentException("unknown output.mode " + m);
+            }
+            b.outputMode = m;
+        });
+        if ("literal".equals(b.zeroDateMode) && !"string".equals(b.outputMode)) {
+            log.error("The \"zero.date.mode\" setting is illegal:literal only works with output.mode=string");
+            throw new IllegalArgumentException("zero.date.mode literal requires output.mode string");
+        }
+        return new ConverterConfig(b);
+    }
+
+    /**
+     * 自定义converter拿不到connector的名字，优先读metrics.connector，其次是Debezium放在MDC里的connector名。
+     * 都没有时不能用一个固定的名字注册，同一个worker上的多个connector会抢同一个MBean
+     */
+    private static String metricsConnector(Properties props) {
+        String connectorName = props.getProperty("metrics.connector", MDC.get("dbz.connectorName"));
+        if (connectorName == null || connectorName.trim().isEmpty()) {
+            throw new IllegalArgumentException("metrics.enabled requires metrics.connector");
+        }
+        return connectorName.trim();
+    }
+
+    /**
+     * MBean的生命周期跟随这个配置，配置被回收后注销。注册失败只影响指标，不影响转换
+     */
+    private static ConverterMetrics registerMetrics(String connectorName, String converterName, ConverterConfig owner) {
+        try {
+            return ConverterMetrics.register(connectorName, converterName, owner);
+        } catch (JMException e) {
+            log.warn("failed to register converter metrics for connector {}, metrics are disabled", connectorName, e);
+            return null;
+        }
+    }
+
+    private static ZoneOffset fixedOffset(ZoneId zoneId) {
+        ZoneRules rules = zoneId.getRules();
+        return rules.isFixedOffset() ? rules.getOffset(Instant.EPOCH) : null;
+    }
+
+    private static ZoneOffsetIndex offsetIndex(ZoneId zoneId, String yearRange) {
+        return zoneId.getRules().isFixedOffset() ? null : zoneIndex(zoneId, yearRange);
+    }
+
+    private static ZoneOffsetIndex zoneIndex(ZoneId zoneId, String yearRange) {
+        return FormatRegistry.shared(Arrays.asList(zoneId, yearRange), () -> ZoneOffsetIndex.of(zoneId, yearRange));
+    }
+
+    /**
+     * DATETIME和TIMESTAMP即使pattern相同也不能共用一个格式，列的缓存用格式的id区分两者的结果
+     */
+    private static ColumnFormat sharedFormat(String settingKey, String pattern, boolean allowDate, boolean allowTime) {
+        return FormatRegistry.shared(Arrays.asList(settingKey, pattern), () ->
+                new ColumnFormat(DateTimeFormatter.ofPattern(pattern), compilePattern(pattern, allowDate, allowTime)));
+    }
+
+    private static ColumnFormat withDateTimeTable(ColumnFormat format, String dateTableRange, String settingKey) {
+        return FormatRegistry.shared(Arrays.asList(settingKey + ".table", format, dateTableRange), () ->
+                format.withDateTimeTable(buildDateTimeTable(format.pattern, dateTableRange, settingKey)));
+    }
+
+    /**
+     * pattern中包含格式化对象没有的字段时(比如date的pattern里有HH)，交给DateTimeFormatter去抛异常
+     */
+    private static DateTimePattern compilePattern(String pattern, boolean allowDate, boolean allowTime) {
+        DateTimePattern compiled = DateTimePattern.compile(pattern);
+        if (compiled == null
+                || (!allowDate && compiled.hasDateFields())
+                || (!allowTime && compiled.hasTimeFields())) {
+            log.info("pattern \"{}\" can't be compiled, fallback to DateTimeFormatter", pattern);
+            return null;
+        }
+        return compiled;
+    }
+
+    private static SecondOfDayTable buildTimeTable(DateTimePattern timePattern) {
+        SecondOfDayTable table = timePattern == null ? null : SecondOfDayTable.build(timePattern);
+        if (table == null) {
+            log.warn("time table is disabled because \"format.time\" can't be split into seconds and fraction");
+        }
+        return table;
+    }
+
+    private static DateTimeTable buildDateTimeTable(DateTimePattern pattern, String dateTableRange,
+                                                    String settingKey) {
+        DateTimeTable table = pattern == null ? null
+                : DateTimeTable.build(pattern, EpochDayTable.parseRange(dateTableRange));
+        if (table == null) {
+            log.warn("table is disabled because \"{}\" can't be split into date and time", settingKey);
+        }
+        return table;
+    }
+
+    private static void readProps(Properties properties, String settingKey, Consumer<String> callback) {
+        String settingValue = (String) properties.get(settingKey);
+        if (settingValue == null || settingValue.length() == 0) {
+            return;
+        }
+        try {
+            callback.accept(settingValue.trim());
+        } catch (IllegalArgumentException | DateTimeException e) {
+            log.error("The \"{}\" setting is illegal:{}", settingKey, settingValue);
+            throw e;
+        }
+    }
+
+    /**
+     * fraction.mode不是pattern时，按列定义的小数秒精度派生出这一列的格式，精度相同的列共享同一个格式
+     */
+    ColumnFormat columnFormat(ColumnFormat format, RelationalColumn column) {
+        if ("pattern".equals(fractionMode)) {
+            return format;
+        }
+        int digits = Math.max(0, Math.min(9, EpochUnit.precision(column)));
+        return format.withPrecision(digits, "column_trim".equals(fractionMode), dateTableRange);
+    }
+
+    /**
+     * 比如com.darcytech.debezium.datetime.epoch_millis、com.darcytech.debezium.date.compact
+     */
+    String outputSchemaName(String type) {
+        return "com.darcytech.debezium." + type + "." + outputMode;
+    }
+
+    /**
+     * 把UTC的epochSecond换算成format.timestamp.zone的墙上时间
+     */
+    long timestampLocalSecond(long epochSecond) {
+        if (timestampFixedOffset != null) {
+            return epochSecond + timestampFixedOffset.getTotalSeconds();
+        }
+        if (timestampOffsetIndex != null) {
+            int offset = timestampOffsetIndex.offsetAt(epochSecond);
+            if (offset != ZoneOffsetIndex.UNKNOWN) {
+                return epochSecond + offset;
+            }
+        }
+        return epochSecond + timestampZoneId.getRules().getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+    }
+
+    /**
+     * 把DATETIME的墙上时间当作datetimeZoneId的时间换算成UTC的epochSecond
+     */
+    long datetimeEpochSecond(long localSecond) {
+        int offset = datetimeOffsetIndex.offsetAtLocal(localSecond);
+        if (offset != ZoneOffsetIndex.UNKNOWN) {
+            return localSecond - offset;
+        }
+        return LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC).atZone(datetimeZoneId).toEpochSecond();
+    }
+
+    /**
+     * java.sql里的类型都是按JVM默认时区解释的，把毫秒数换算成默认时区的epochSecond。
+     * 早于格里高利历启用日期或者不在时区索引区间内时返回Long.MIN_VALUE，调用方应回退到toLocalXxx()
+     */
+    long jdbcLocalSecond(long millis) {
+        long epochSecond = Math.floorDiv(millis, 1000L);
+        if (epochSecond < GREGORIAN_CUTOVER) {
+            return Long.MIN_VALUE;
+        }
+        int offset = jdbcOffsetIndex.offsetAt(epochSecond);
+        return offset == ZoneOffsetIndex.UNKNOWN ? Long.MIN_VALUE : epochSecond + offset;
+    }
+
+    /**
+     * java.util.Date虽然可变，但Connect只读取它的时间戳，同一天复用同一个实例
+     */
+    java.util.Date logicalDate(long epochDay) {
+        long millis = epochDay * EpochCalendar.SECONDS_PER_DAY * 1000;
+        int slot = (int) epochDay & (LOGICAL_DATE_SLOTS - 1);
+        java.util.Date date = logicalDates.get(slot);
+        if (date == null || date.getTime() != millis) {
+            date = new java.util.Date(millis);
+            logicalDates.lazySet(slot, date);
+        }
+        return date;
+    }
+
+    String formatEpochDay(long epochDay) {
+        String formatted = dateTable == null ? null : dateTable.get(epochDay);
+        if (formatted != null) {
+            return formatted;
+        }
+        long date = EpochCalendar.civilDate(epochDay);
+        return formatDate(EpochCalendar.year(date), EpochCalendar.month(date), EpochCalendar.day(date));
+    }
+
+    String formatDate(int year, int month, int day) {
+        return formatDate(dateFormat.pattern, dateFormat.formatter, year, month, day);
+    }
+
+    private static String formatDate(DateTimePattern pattern, DateTimeFormatter formatter,
+                                     int year, int month, int day) {
+        if (MySqlDateTimeConverter.isFastPathSupported(pattern, year)) {
+            return pattern.format(year, month, day, 0, 0, 0, 0);
+        }
+        return formatter.format(LocalDate.of(year, month, day));
+    }
+
+    /**
+     * 解析过程中的可变状态，解析完成后整体复制到{@link ConverterConfig}
+     */
+    private static final class Builder {
+        private ColumnFormat dateFormat = ISO_DATE;
+        private EpochDayTable dateTable;
+        private String dateTableRange = DEFAULT_DATE_TABLE_RANGE;
+        private ColumnFormat timeFormat = ISO_TIME;
+        private ColumnFormat datetimeFormat = ISO_DATETIME;
+        private ColumnFormat timestampFormat = ISO_TIMESTAMP;
+        private String fractionMode = "pattern";
+        private String outputMode = "string";
+        private EpochUnit outputUnit;
+        private boolean lastValueEnabled = true;
+        private TemporalCache cache;
+        private String metricsConnector;
+        private String metricsName;
+        private String precisionMode = DEFAULT_PRECISION_MODE;
+        private boolean optionalAlways = false;
+        private String zeroDateMode = "null";
+        private String zeroDateLiteral = "0000-00-00";
+        private String zeroDatetimeLiteral = "0000-00-00 00:00:00";
+        private ZoneId timestampZoneId = ZoneId.systemDefault();
+        private ZoneOffset timestampFixedOffset = fixedOffset(timestampZoneId);
+        private ZoneOffsetIndex timestampOffsetIndex = offsetIndex(timestampZoneId, DEFAULT_ZONE_YEAR_RANGE);
+        private String zoneYearRange = DEFAULT_ZONE_YEAR_RANGE;
+        private ZoneId datetimeZoneId;
+    }
+}
@@ -0,0 +1,287 @@
+package com.darcytech.debezium.converter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按SQL类型统计的转换指标，通过JMX暴露
+ */
+@Slf4j
+public class ConverterMetrics implements ConverterMetricsMBean {
+
+    /**
+     * 这里注册的MBean以及使用它们的配置。CustomConverter没有close回调，配置被回收(task停止)后才注销MBean；
+     * task重启时旧的配置可能还没有被回收，同名的MBean被多个配置使用时共用同一份指标，最后一个配置被回收时注销
+     */
+    private static final Map<ObjectName, Registration> REGISTRATIONS = new HashMap<>();
+    private static final ReferenceQueue<Object> COLLECTED = new ReferenceQueue<>();
+    private static final String[] COLUMN_ITEMS = {"table", "column", "hits", "misses"};
+    private static final TabularType COLUMNS_TYPE;
+
+    static {
+        try {
+            CompositeType columnType = new CompositeType("column", "last value hits of a column", COLUMN_ITEMS,
+                    COLUMN_ITEMS, new OpenType<?>[]{SimpleType.STRING, SimpleType.STRING, SimpleType.LONG, SimpleType.LONG});
+            COLUMNS_TYPE = new TabularType("columns", "last value hits per column", columnType,
+                    new String[]{"table", "column"});
+        } catch (OpenDataException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static {
+        Thread cleaner = new Thread(ConverterMetrics::unregisterCollected, "datetime-converter-metrics-cleaner");
+        cleaner.setDaemon(true);
+        cleaner.start();
+    }
+
+    final TypeMetrics date = new TypeMetrics();
+    final TypeMetrics time = new TypeMetrics();
+    final TypeMetrics datetime = new TypeMetrics();
+    final TypeMetrics timestamp = new TypeMetrics();
+    /**
+     * 表名 -> 列名 -> 这一列最近注册的converter。重放schema历史时同一列会重新注册，替换掉旧的；
+     * 分两层存放，注册时不用拼接key。
+     * converter持有它的配置，MBean一直被MBeanServer引用，这里只能弱引用，否则配置永远不会被回收、MBean也不会被注销；
+     * 表被删掉后converter被回收，对应的行在下一次读取时清除
+     */
+    private final Map<String, Map<String, WeakReference<ColumnConverter>>> columns = new ConcurrentHashMap<>();
+
+    /**
+     * 注册到platform MBeanServer，owner被回收后注销。
+     * 同名的MBean是别人注册的时候不会去注销它，抛出InstanceAlreadyExistsException
+     */
+    static synchronized ConverterMetrics register(String connectorName, String converterName, Object owner)
+            throws JMException {
+        ObjectName objectName = new ObjectName("com.darcytech.debezium:type=datetime-converter,connector="
+                + ObjectName.quote(connectorName) + ",name=" + ObjectName.quote(converterName));
+        Registration registration = REGISTRATIONS.get(objectName);
+        if (registration == null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                throw new InstanceAlreadyExistsException(objectName + " is registered by another converter");
+            }
+            registration = new Registration(new ConverterMetrics());
+            server.registerMBean(registration.metrics, objectName);
+            REGISTRATIONS.put(objectName, registration);
+        } else {
+            log.info("converter metrics {} is still used by another configuration, sharing its counters", objectName);
+        }
+        registration.owners.add(new Owner(owner, objectName));
+        return registration.metrics;
+    }
+
+    private static void unregisterCollected() {
+        while (true) {
+            Owner owner;
+            try {
+                owner = (Owner) COLLECTED.remove();
+            } catch (InterruptedException e) {
+                return;
+            }
+            release(owner);
+        }
+    }
+
+    private static synchronized void release(Owner owner) {
+        Registration registration = REGISTRATIONS.get(owner.objectName);
+        if (registration == null || !registration.owners.remove(owner) || !registration.owners.isEmpty()) {
+            return;
+        }
+        REGISTRATIONS.remove(owner.objectName);
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(owner.objectName);
+        } catch (JMException e) {
+            log.warn("failed to unregister converter metrics {}", owner.objectName, e);
+        }
+    }
+
+    @Override
+    public long getDateConverted() {
+        return date.converted();
+    }
+
+    @Override
+    public long getDateNulls() {
+        return date.nulls();
+    }
+
+    @Override
+    public long getDateUnsupported() {
+        return date.unsupported();
+    }
+
+    @Override
+    public long getDateNanos() {
+        return date.nanos();
+    }
+
+    @Override
+    public long getDateZeroDates() {
+        return date.zeroDates();
+    }
+
+    @Override
+    public long getTimeConverted() {
+        return time.converted();
+    }
+
+    @Override
+    public long getTimeNulls() {
+        return time.nulls();
+    }
+
+    @Override
+    public long getTimeUnsupported() {
+        return time.unsupported();
+    }
+
+    @Override
+    public long getTimeNanos() {
+        return time.nanos();
+    }
+
+    @Override
+    public long getTimeZeroDates() {
+        return time.zeroDates();
+    }
+
+    @Override
+    public long getDatetimeConverted() {
+        return datetime.converted();
+    }
+
+    @Override
+    public long getDatetimeNulls() {
+        return datetime.nulls();
+    }
+
+    @Override
+    public long getDatetimeUnsupported() {
+        return datetime.unsupported();
+    }
+
+    @Override
+    public long getDatetimeNanos() {
+        return datetime.nanos();
+    }
+
+    @Override
+    public long getDatetimeZeroDates() {
+        return datetime.zeroDates();
+    }
+
+    @Override
+    public long getTimestampConverted() {
+        return timestamp.converted();
+    }
+
+    @Override
+    public long getTimestampNulls() {
+        return timestamp.nulls();
+    }
+
+    @Override
+    public long getTimestampUnsupported() {
+        return timestamp.unsupported();
+    }
+
+    @Override
+    public long getTimestampNanos() {
+        return timestamp.nanos();
+    }
+
+    @Override
+    public long getTimestampZeroDates() {
+        return timestamp.zeroDates();
+    }
+
+    @Override
+    public TabularData getColumns() {
+        TabularDataSupport data = new TabularDataSupport(COLUMNS_TYPE);
+        columns.forEach((table, tableColumns) -> {
+            tableColumns.forEach((column, reference) -> {
+                ColumnConverter converter = reference.get();
+                if (converter == null) {
+                    tableColumns.remove(column, reference);
+                    return;
+                }
+                try {
+                    data.put(new CompositeDataSupport(COLUMNS_TYPE.getRowType(), COLUMN_ITEMS,
+                            new Object[]{table, column, converter.hitCount(), converter.missCount()}));
+                } catch (OpenDataException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            // 和column()一样在compute里修改，不会删掉刚刚加进来的列
+            columns.computeIfPresent(table, (t, c) -> c.isEmpty() ? null : c);
+        });
+        return data;
+    }
+
+    /**
+     * sqlType是DATE、TIME、DATETIME或者TIMESTAMP
+     */
+    TypeMetrics type(String sqlType) {
+        switch (sqlType) {
+            case "DATE":
+                return date;
+            case "TIME":
+                return time;
+            case "DATETIME":
+                return datetime;
+            default:
+                return timestamp;
+        }
+    }
+
+    void column(String table, String column, ColumnConverter converter) {
+        columns.compute(table, (t, tableColumns) -> {
+            Map<String, WeakReference<ColumnConverter>> result = tableColumns == null
+                    ? new ConcurrentHashMap<>() : tableColumns;
+            result.put(column, new WeakReference<>(converter));
+            return result;
+        });
+    }
+
+    private static final class Registration {
+        private final ConverterMetrics metrics;
+        /**
+         * 必须强引用Owner本身，否则弱引用对象先被回收，就不会进入引用队列
+         */
+        private final Set<Owner> owners = new HashSet<>();
+
+        private Registration(ConverterMetrics metrics) {
+            this.metrics = metrics;
+        }
+    }
+
+    private static final class Owner extends WeakReference<Object> {
+        private final ObjectName objectName;
+
+        private Owner(Object owner, ObjectName objectName) {
+            super(owner, COLLECTED);
+            this.objectName = objectName;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.darcytech.debezium.converter;
+
+import javax.management.openmbean.TabularData;
+
+/**
+ * 每个{@link MySqlDateTimeConverter}实例的JMX指标。
+ * Converted是成功转换的数量，Nulls是输入为null的数量，
+ * Unsupported是输入类型不支持而返回null的数量，Nanos是累计耗时，
+ * ZeroDates是零值日期('0000-00-00')的数量，零值日期不计入其他指标。
+ * 等于列默认值的输入直接返回注册时转换好的结果，也计入Converted和Nanos。
+ * Columns是每一列当前的converter命中上一次输入的次数(hits)和没有命中的次数(misses)，
+ * 只有开启了column.last.value.enabled才有
+ */
+public interface ConverterMetricsMBean {
+
+    long getDateConverted();
+
+    long getDateNulls();
+
+    long getDateUnsupported();
+
+    long getDateNanos();
+
+    long getDateZeroDates();
+
+    long getTimeConverted();
+
+    long getTimeNulls();
+
+    long getTimeUnsupported();
+
+    long getTimeNanos();
+
+    long getTimeZeroDates();
+
+    long getDatetimeConverted();
+
+    long getDatetimeNulls();
+
+    long getDatetimeUnsupported();
+
+    long getDatetimeNanos();
+
+    long getDatetimeZeroDates();
+
+    long getTimestampConverted();
+
+    long getTimestampNulls();
+
+    long getTimestampUnsupported();
+
+    long getTimestampNanos();
+
+    long getTimestampZeroDates();
+
+    TabularData getColumns();
+}
@@ -0,0 +1,521 @@
+package com.darcytech.debezium.converter;
+
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 把{@link java.time.format.DateTimeFormatter#ofPattern(String)}常用的那部分pattern
+ * (yyyy、MM、dd、HH、mm、ss、S..S以及字面量)编译成直接写char数组的格式化器，
+ * 避免DateTimeFormatter每次格式化都创建DateTimePrintContext和StringBuilder。
+ * 只保证年份在[1, 9999]区间内与DateTimeFormatter的输出完全一致，区间外的值由调用方回退到DateTimeFormatter。
+ */
+final class DateTimePattern {
+
+    static final int MIN_YEAR = 1;
+    static final int MAX_YEAR = 9999;
+
+    private static final byte LITERAL = 0;
+    private static final byte YEAR = 1;
+    private static final byte YEAR_REDUCED = 2;
+    private static final byte MONTH = 3;
+    private static final byte DAY = 4;
+    private static final byte HOUR = 5;
+    private static final byte MINUTE = 6;
+    private static final byte SECOND = 7;
+    private static final byte FRACTION = 8;
+
+    private static final int BUFFER_SIZE = 64;
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[BUFFER_SIZE]);
+
+    /**
+     * 等价于{@link java.time.format.DateTimeFormatter#ISO_DATE}格式化LocalDate
+     */
+    static final DateTimePattern ISO_DATE = new Builder()
+            .field('u', YEAR, 4).literal("-").field('M', MONTH, 2).literal("-").field('d', DAY, 2)
+            .build();
+    /**
+     * 等价于{@link java.time.format.DateTimeFormatter#ISO_TIME}格式化LocalTime
+     */
+    static final DateTimePattern ISO_TIME = new Builder()
+            .field('H', HOUR, 2).literal(":").field('m', MINUTE, 2).literal(":").field('s', SECOND, 2)
+            .fraction(0, 9, true)
+            .build();
+    /**
+     * 等价于{@link java.time.format.DateTimeFormatter#ISO_DATE_TIME}格式化LocalDateTime
+     */
+    static final DateTimePattern ISO_DATE_TIME = new Builder()
+            .field('u', YEAR, 4).literal("-").field('M', MONTH, 2).literal("-").field('d', DAY, 2)
+            .literal("T")
+            .field('H', HOUR, 2).literal(":").field('m', MINUTE, 2).literal(":").field('s', SECOND, 2)
+            .fraction(0, 9, true)
+            .build();
+
+    private final byte[] types;
+    private final int[] minWidths;
+    private final int[] maxWidths;
+    private final char[][] literals;
+    /**
+     * 字段对应的pattern字母，字面量和S..S为0
+     */
+    private final char[] letters;
+    private final int maxLength;
+    private final boolean hasDateFields;
+    private final boolean hasTimeFields;
+
+    private DateTimePattern(byte[] types, int[] minWidths, int[] maxWidths, char[][] literals, char[] letters) {
+        this.types = types;
+        this.minWidths = minWidths;
+        this.maxWidths = maxWidths;
+        this.literals = literals;
+        this.letters = letters;
+        int length = 0;
+        boolean date = false;
+        boolean time = false;
+        for (int i = 0; i < types.length; i++) {
+            byte type = types[i];
+            if (type == LITERAL) {
+                length += literals[i].length;
+            } else {
+                length += type == FRACTION && literals[i] != null ? maxWidths[i] + 1 : maxWidths[i];
+            }
+            date |= type == YEAR || type == YEAR_REDUCED || type == MONTH || type == DAY;
+            time |= type == HOUR || type == MINUTE || type == SECOND || type == FRACTION;
+        }
+        this.maxLength = length;
+        this.hasDateFields = date;
+        this.hasTimeFields = time;
+    }
+
+    /**
+     * 编译pattern，pattern中出现不支持的字母时返回null，调用方应回退到DateTimeFormatter。
+     * pattern需要先通过{@link java.time.format.DateTimeFormatter#ofPattern(String)}校验。
+     */
+    static DateTimePattern compile(String pattern) {
+        Builder builder = new Builder();
+        int length = pattern.length();
+        for (int pos = 0; pos < length; pos++) {
+            char cur = pattern.charAt(pos);
+            if ((cur >= 'A' && cur <= 'Z') || (cur >= 'a' && cur <= 'z')) {
+                int start = pos++;
+                for (; pos < length && pattern.charAt(pos) == cur; pos++) ;
+                int count = pos - start;
+                pos--;
+                if (!builder.letter(cur, count)) {
+                    return null;
+                }
+            } else if (cur == '\'') {
+                int start = pos++;
+                for (; pos < length; pos++) {
+                    if (pattern.charAt(pos) == '\'') {
+                        if (pos + 1 < length && pattern.charAt(pos + 1) == '\'') {
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                if (pos >= length) {
+                    return null;
+                }
+                String str = pattern.substring(start + 1, pos);
+                builder.literal(str.isEmpty() ? "'" : str.replace("''", "'"));
+            } else if (cur == '[' || cur == ']' || cur == '{' || cur == '}' || cur == '#') {
+                return null;
+            } else {
+                builder.literal(String.valueOf(cur));
+            }
+        }
+        return builder.build();
+    }
+
+    boolean hasDateFields() {
+        return hasDateFields;
+    }
+
+    boolean hasTimeFields() {
+        return hasTimeFields;
+    }
+
+    int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * 第一个S..S之前的部分，输出只取决于精确到秒的字段。
+     * 没有S..S时返回自身，S..S之后还有其他字段(非字面量)时无法拆分，返回null
+     */
+    DateTimePattern beforeFraction() {
+        int index = fractionIndex();
+        if (index < 0) {
+            return this;
+        }
+        for (int i = index; i < types.length; i++) {
+            if (types[i] != LITERAL && types[i] != FRACTION) {
+                return null;
+            }
+        }
+        return slice(0, index);
+    }
+
+    /**
+     * 从第一个S..S开始的部分，没有S..S时返回null
+     */
+    DateTimePattern fromFraction() {
+        int index = fractionIndex();
+        return index < 0 ? null : slice(index, types.length);
+    }
+
+    /**
+     * 第一个时间字段之前的部分，包括日期字段以及日期和时间之间的分隔符。
+     * 时间字段之后还有日期字段时无法拆分，返回null
+     */
+    DateTimePattern beforeTime() {
+        int index = timeIndex();
+        return index < 0 ? null : slice(0, index);
+    }
+
+    /**
+     * 从第一个时间字段开始的部分，无法拆分时返回null
+     */
+    DateTimePattern fromTime() {
+        int index = timeIndex();
+        return index < 0 ? null : slice(index, types.length);
+    }
+
+    private int timeIndex() {
+        int index = -1;
+        for (int i = 0; i < types.length; i++) {
+            byte type = types[i];
+            if (index < 0 && (type == HOUR || type == MINUTE || type == SECOND || type == FRACTION)) {
+                index = i;
+            }
+            if (index >= 0 && (type == YEAR || type == YEAR_REDUCED || type == MONTH || type == DAY)) {
+                return -1;
+            }
+        }
+        return index;
+    }
+
+    private int fractionIndex() {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == FRACTION) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private DateTimePattern slice(int from, int to) {
+        return new DateTimePattern(Arrays.copyOfRange(types, from, to), Arrays.copyOfRange(minWidths, from, to),
+                Arrays.copyOfRange(maxWidths, from, to), Arrays.copyOfRange(literals, from, to),
+                Arrays.copyOfRange(letters, from, to));
+    }
+
+    /**
+     * 把第一个S..S换成固定digits位的小数秒，trim为true时去掉末尾的0，digits为0时连同小数点一起去掉。
+     * 没有S..S时加在秒的后面，没有秒时返回自身
+     */
+    DateTimePattern withFraction(int digits, boolean trim) {
+        int index = fractionIndex();
+        int rest = index + 1;
+        boolean decimalPoint = true;
+        if (index >= 0) {
+            decimalPoint = literals[index] != null;
+        } else {
+            for (int i = 0; i < types.length; i++) {
+                if (types[i] == SECOND) {
+                    index = i + 1;
+                }
+            }
+            if (index < 0) {
+                return this;
+            }
+            rest = index;
+        }
+        Builder builder = new Builder();
+        for (int i = 0; i < index; i++) {
+            builder.add(types[i], minWidths[i], maxWidths[i], literals[i], letters[i]);
+        }
+        if (digits > 0) {
+            builder.fraction(trim ? 0 : digits, digits, decimalPoint);
+        }
+        for (int i = rest; i < types.length; i++) {
+            if (types[i] == LITERAL) {
+                builder.literal(new String(literals[i]));
+            } else {
+                builder.add(types[i], minWidths[i], maxWidths[i], literals[i], letters[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 生成输出相同的DateTimeFormatter，用于年份超出[1, 9999]时的回退
+     */
+    DateTimeFormatter toFormatter() {
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == LITERAL) {
+                builder.appendLiteral(new String(literals[i]));
+            } else if (types[i] == FRACTION) {
+                builder.appendFraction(ChronoField.NANO_OF_SECOND, minWidths[i], maxWidths[i], literals[i] != null);
+            } else {
+                char[] pattern = new char[minWidths[i]];
+                Arrays.fill(pattern, letters[i]);
+                builder.appendPattern(new String(pattern));
+            }
+        }
+        return builder.toFormatter();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DateTimePattern)) {
+            return false;
+        }
+        DateTimePattern that = (DateTimePattern) o;
+        return Arrays.equals(types, that.types)
+                && Arrays.equals(minWidths, that.minWidths)
+                && Arrays.equals(maxWidths, that.maxWidths)
+                && Arrays.deepEquals(literals, that.literals)
+                && Arrays.equals(letters, that.letters);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(types) + Arrays.deepHashCode(literals);
+    }
+
+    /**
+     * 当前线程可重复使用的缓冲区，调用方不能在持有它的时候再调用{@link #format}
+     */
+    static char[] buffer(int length) {
+        return length <= BUFFER_SIZE ? BUFFER.get() : new char[length];
+    }
+
+    String format(int year, int month, int day, int hour, int minute, int second, int nano) {
+        char[] buf = buffer(maxLength);
+        int length = formatTo(buf, 0, year, month, day, hour, minute, second, nano);
+        return new String(buf, 0, length);
+    }
+
+    /**
+     * 把各个字段写入buf，返回写入后的位置，buf剩余空间至少要有{@link #maxLength()}
+     */
+    int formatTo(char[] buf, int pos, int year, int month, int day, int hour, int minute, int second, int nano) {
+        for (int i = 0; i < types.length; i++) {
+            switch (types[i]) {
+                case LITERAL:
+                    char[] literal = literals[i];
+                    System.arraycopy(literal, 0, buf, pos, literal.length);
+                    pos += literal.length;
+                    break;
+                case YEAR:
+                    pos = writeNumber(buf, pos, year, minWidths[i]);
+                    break;
+                case YEAR_REDUCED:
+                    pos = writeNumber(buf, pos, year % 100, 2);
+                    break;
+                case MONTH:
+                    pos = writeNumber(buf, pos, month, minWidths[i]);
+                    break;
+                case DAY:
+                    pos = writeNumber(buf, pos, day, minWidths[i]);
+                    break;
+                case HOUR:
+                    pos = writeNumber(buf, pos, hour, minWidths[i]);
+                    break;
+                case MINUTE:
+                    pos = writeNumber(buf, pos, minute, minWidths[i]);
+                    break;
+                case SECOND:
+                    pos = writeNumber(buf, pos, second, minWidths[i]);
+                    break;
+                default:
+                    pos = writeFraction(buf, pos, nano, minWidths[i], maxWidths[i], literals[i] != null);
+                    break;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * 写入非负整数，不足width位时左补0
+     */
+    static int writeNumber(char[] buf, int pos, int value, int width) {
+        int digits = value < 10 ? 1 : value < 100 ? 2 : value < 1000 ? 3 : value < 10000 ? 4 : stringSize(value);
+        for (int i = digits; i < width; i++) {
+            buf[pos++] = '0';
+        }
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * 与DateTimeFormatterBuilder.FractionPrinterParser的输出保持一致：超出maxWidth的位数截断，
+     * 不足minWidth的位数补0，介于两者之间时去掉末尾的0
+     */
+    static int writeFraction(char[] buf, int pos, int nano, int minWidth, int maxWidth, boolean decimalPoint) {
+        int width;
+        if (nano == 0) {
+            width = minWidth;
+        } else {
+            int significant = 9;
+            for (int n = nano; n % 10 == 0; n /= 10) {
+                significant--;
+            }
+            width = Math.min(Math.max(significant, minWidth), maxWidth);
+        }
+        if (width == 0) {
+            return pos;
+        }
+        if (decimalPoint) {
+            buf[pos++] = '.';
+        }
+        int value = nano;
+        for (int i = width; i < 9; i++) {
+            value /= 10;
+        }
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+
+    private static int stringSize(int value) {
+        int size = 1;
+        for (; value >= 10; value /= 10) {
+            size++;
+        }
+        return size;
+    }
+
+    private static final class Builder {
+        private final List<Byte> types = new ArrayList<>();
+        private final List<Integer> minWidths = new ArrayList<>();
+        private final List<Integer> maxWidths = new ArrayList<>();
+        private final List<char[]> literals = new ArrayList<>();
+        private final List<Character> letters = new ArrayList<>();
+
+        private boolean letter(char letter, int count) {
+            if (letter == 'y' || letter == 'u') {
+                if (count == 2) {
+                    add(YEAR_REDUCED, 2, 2, null, letter);
+                } else {
+                    field(letter, YEAR, count);
+                }
+                return true;
+            }
+            if (letter == 'S') {
+                if (count > 9) {
+                    return false;
+                }
+                fraction(count, count, false);
+                return true;
+            }
+            byte type;
+            switch (letter) {
+                case 'M':
+                    type = MONTH;
+                    break;
+                case 'd':
+                    type = DAY;
+                    break;
+                case 'H':
+                    type = HOUR;
+                    break;
+                case 'm':
+                    type = MINUTE;
+                    break;
+                case 's':
+                    type = SECOND;
+                    break;
+                default:
+                    return false;
+            }
+            // MMM之类的文本形式不支持
+            if (count > 2) {
+                return false;
+            }
+            field(letter, type, count);
+            return true;
+        }
+
+        private Builder field(char letter, byte type, int width) {
+            // 年份最多4位，其余字段最多2位
+            return add(type, width, Math.max(width, type == YEAR ? 4 : 2), null, letter);
+        }
+
+        private Builder fraction(int minWidth, int maxWidth, boolean decimalPoint) {
+            int last = types.size() - 1;
+            if (!decimalPoint && minWidth > 0 && last >= 0 && types.get(last) == LITERAL) {
+                // "ss.SSS"里的'.'一定会输出，当作小数点处理，这样调整小数位数时可以一起去掉
+                char[] literal = literals.get(last);
+                if (literal[literal.length - 1] == '.') {
+                    decimalPoint = true;
+                    if (literal.length == 1) {
+                        types.remove(last);
+                        minWidths.remove(last);
+                        maxWidths.remove(last);
+                        literals.remove(last);
+                        letters.remove(last);
+                    } else {
+                        literals.set(last, Arrays.copyOf(literal, literal.length - 1));
+                    }
+                }
+            }
+            // 对于FRACTION，literal非空表示需要输出小数点
+            return add(FRACTION, minWidth, maxWidth, decimalPoint ? new char[]{'.'} : null, (char) 0);
+        }
+
+        private Builder literal(String literal) {
+            int last = types.size() - 1;
+            if (last >= 0 && types.get(last) == LITERAL) {
+                literal = new String(literals.get(last)) + literal;
+                types.remove(last);
+                minWidths.remove(last);
+                maxWidths.remove(last);
+                literals.remove(last);
+                letters.remove(last);
+            }
+            return add(LITERAL, 0, 0, literal.toCharArray(), (char) 0);
+        }
+
+        private Builder add(byte type, int minWidth, int maxWidth, char[] literal, char letter) {
+            types.add(type);
+            minWidths.add(minWidth);
+            maxWidths.add(maxWidth);
+            literals.add(literal);
+            letters.add(letter);
+            return this;
+        }
+
+        private DateTimePattern build() {
+            int size = types.size();
+            byte[] typeArray = new byte[size];
+            int[] minWidthArray = new int[size];
+            int[] maxWidthArray = new int[size];
+            char[] letterArray = new char[size];
+            for (int i = 0; i < size; i++) {
+                typeArray[i] = types.get(i);
+                minWidthArray[i] = minWidths.get(i);
+                maxWidthArray[i] = maxWidths.get(i);
+                letterArray[i] = letters.get(i);
+            }
+            return new DateTimePattern(typeArray, minWidthArray, maxWidthArray, literals.toArray(new char[size][]),
+                    letterArray);
+        }
+    }
+}
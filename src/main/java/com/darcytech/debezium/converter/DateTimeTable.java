@@ -0,0 +1,74 @@
+package com.darcytech.debezium.converter;
+
+/**
+ * 把"日期部分+分隔符"和"时间部分"分别按epochDay和secondOfDay预先格式化好，
+ * 格式化DATETIME时只需要把两个片段拷贝到同一个char数组里
+ */
+final class DateTimeTable {
+
+    private static final long MIN_EPOCH_DAY = -719162;   // 0001-01-01
+    private static final long MAX_EPOCH_DAY = 2932896;   // 9999-12-31
+
+    private final EpochDayTable dates;
+    private final DateTimePattern datePart;
+    private final SecondOfDayTable times;
+    private final int maxLength;
+
+    private DateTimeTable(EpochDayTable dates, DateTimePattern datePart, SecondOfDayTable times) {
+        this.dates = dates;
+        this.datePart = datePart;
+        this.times = times;
+        this.maxLength = Math.max(dates.maxLength(), datePart.maxLength()) + times.maxLength();
+    }
+
+    /**
+     * pattern不能拆成日期和时间两部分时返回null
+     */
+    static DateTimeTable build(DateTimePattern pattern, long[] range) {
+        DateTimePattern datePart = pattern.beforeTime();
+        DateTimePattern timePart = pattern.fromTime();
+        SecondOfDayTable times = timePart == null ? null : SecondOfDayTable.build(timePart);
+        if (datePart == null || times == null) {
+            return null;
+        }
+        long[] clamped = {Math.max(range[0], MIN_EPOCH_DAY), Math.min(range[1], MAX_EPOCH_DAY)};
+        if (clamped[0] > clamped[1]) {
+            return null;
+        }
+        EpochDayTable dates = EpochDayTable.build(clamped, epochDay -> {
+            long date = EpochCalendar.civilDate(epochDay);
+            return datePart.format(EpochCalendar.year(date), EpochCalendar.month(date), EpochCalendar.day(date), 0, 0, 0, 0);
+        });
+        return new DateTimeTable(dates, datePart, times);
+    }
+
+    /**
+     * 换成另一个pattern，日期部分相同时复用已经格式化好的日期和时间
+     */
+    DateTimeTable withPattern(DateTimePattern pattern, long[] range) {
+        DateTimePattern datePart = pattern.beforeTime();
+        DateTimePattern timePart = pattern.fromTime();
+        if (datePart == null || timePart == null || !datePart.equals(this.datePart)) {
+            return build(pattern, range);
+        }
+        SecondOfDayTable times = this.times.withPattern(timePart);
+        return times == null ? null : new DateTimeTable(dates, datePart, times);
+    }
+
+    /**
+     * epochDay对应的年份必须在[{@link DateTimePattern#MIN_YEAR}, {@link DateTimePattern#MAX_YEAR}]之间
+     */
+    String format(long epochDay, int year, int month, int day, int secondOfDay, int nano) {
+        char[] buf = DateTimePattern.buffer(maxLength);
+        int pos;
+        String date = dates.get(epochDay);
+        if (date != null) {
+            pos = date.length();
+            date.getChars(0, pos, buf, 0);
+        } else {
+            pos = datePart.formatTo(buf, 0, year, month, day, 0, 0, 0, 0);
+        }
+        pos = times.formatTo(buf, pos, secondOfDay, nano);
+        return new String(buf, 0, pos);
+    }
+}
@@ -0,0 +1,44 @@
+package com.darcytech.debezium.converter;
+
+/**
+ * 纯算术的公历换算，避免为了拿到年月日而创建LocalDate等对象。
+ * 算法参考 http://howardhinnant.github.io/date_algorithms.html
+ */
+final class EpochCalendar {
+
+    static final long SECONDS_PER_DAY = 86400;
+
+    private static final int DAYS_0000_TO_1970 = 719468;
+    private static final int DAYS_PER_ERA = 146097;
+
+    private EpochCalendar() {
+    }
+
+    /**
+     * epochDay换算成年月日，年月日打包在一个long里，通过{@link #year(long)}、{@link #month(long)}、{@link #day(long)}读取
+     */
+    static long civilDate(long epochDay) {
+        long z = epochDay + DAYS_0000_TO_1970;
+        long era = (z >= 0 ? z : z - (DAYS_PER_ERA - 1)) / DAYS_PER_ERA;
+        long dayOfEra = z - era * DAYS_PER_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | day;
+    }
+
+    static int year(long civilDate) {
+        return (int) (civilDate >> 9);
+    }
+
+    static int month(long civilDate) {
+        return (int) (civilDate >> 5) & 0xF;
+    }
+
+    static int day(long civilDate) {
+        return (int) civilDate & 0x1F;
+    }
+}
@@ -0,0 +1,72 @@
+package com.darcytech.debezium.converter;
+
+import java.time.LocalDate;
+import java.util.function.LongFunction;
+
+/**
+ * 按epochDay预先格式化好的日期字符串表，查表只需要一次边界检查和一次数组读取
+ */
+final class EpochDayTable {
+
+    /**
+     * 限制表的大小，避免配置错误的区间吃掉大量内存，100000天大约是273年
+     */
+    static final int MAX_SIZE = 100000;
+
+    private final long firstDay;
+    private final String[] values;
+
+    private EpochDayTable(long firstDay, String[] values) {
+        this.firstDay = firstDay;
+        this.values = values;
+    }
+
+    /**
+     * 解析"1970-01-01..2100-12-31"格式的区间，区间两端都包含在内
+     */
+    static EpochDayTable build(String range, LongFunction<String> formatter) {
+        return build(parseRange(range), formatter);
+    }
+
+    /**
+     * 返回区间两端的epochDay
+     */
+    static long[] parseRange(String range) {
+        int separator = range.indexOf("..");
+        if (separator < 0) {
+            throw new IllegalArgumentException("date range must be like 1970-01-01..2100-12-31");
+        }
+        long firstDay = LocalDate.parse(range.substring(0, separator).trim()).toEpochDay();
+        long lastDay = LocalDate.parse(range.substring(separator + 2).trim()).toEpochDay();
+        if (lastDay < firstDay || lastDay - firstDay >= MAX_SIZE) {
+            throw new IllegalArgumentException("date range must contain 1 to " + MAX_SIZE + " days");
+        }
+        return new long[]{firstDay, lastDay};
+    }
+
+    static EpochDayTable build(long[] range, LongFunction<String> formatter) {
+        long firstDay = range[0];
+        long lastDay = range[1];
+        String[] values = new String[(int) (lastDay - firstDay + 1)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = formatter.apply(firstDay + i);
+        }
+        return new EpochDayTable(firstDay, values);
+    }
+
+    int maxLength() {
+        int max = 0;
+        for (String value : values) {
+            max = Math.max(max, value.length());
+        }
+        return max;
+    }
+
+    /**
+     * epochDay不在表的区间内时返回null
+     */
+    String get(long epochDay) {
+        long index = epochDay - firstDay;
+        return index >= 0 && index < values.length ? values[(int) index] : null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.darcytech.debezium.converter;
+
+import io.debezium.spi.converter.RelationalColumn;
+
+/**
+ * Debezium按time.precision.mode把DATETIME、TIMESTAMP、TIME表示成毫秒、微秒或纳秒的Long，
+ * 这里把Long拆成秒和纳秒
+ */
+enum EpochUnit {
+    MILLIS(1000L),
+    MICROS(1000_000L),
+    NANOS(1000_000_000L);
+
+    private final long perSecond;
+    private final int nanosPerUnit;
+
+    EpochUnit(long perSecond) {
+        this.perSecond = perSecond;
+        this.nanosPerUnit = (int) (1000_000_000L / perSecond);
+    }
+
+    long seconds(long value) {
+        return Math.floorDiv(value, perSecond);
+    }
+
+    int nanos(long value) {
+        return (int) Math.floorMod(value, perSecond) * nanosPerUnit;
+    }
+
+    /**
+     * seconds和nanos的逆运算，不足一个单位的纳秒被截断
+     */
+    long toEpoch(long seconds, int nano) {
+        return seconds * perSecond + nano / nanosPerUnit;
+    }
+
+    /**
+     * 与Debezium MySQL connector的time.precision.mode保持一致：
+     * <ul>
+     * <li>connect: 全部是毫秒</li>
+     * <li>adaptive: 小数秒精度不超过3位时是毫秒，否则是微秒</li>
+     * <li>adaptive_time_microseconds: 同adaptive，但TIME总是微秒</li>
+     * </ul>
+     * 精度超过6位(MySQL本身不支持)时按纳秒处理
+     */
+    static EpochUnit of(RelationalColumn column, String sqlType, String precisionMode) {
+        if ("connect".equals(precisionMode)) {
+            return MILLIS;
+        }
+        if ("TIME".equals(sqlType) && "adaptive_time_microseconds".equals(precisionMode)) {
+            return MICROS;
+        }
+        int precision = precision(column);
+        return precision <= 3 ? MILLIS : precision <= 6 ? MICROS : NANOS;
+    }
+
+    /**
+     * 列定义的小数秒位数，比如DATETIME(3)是3
+     */
+    static int precision(RelationalColumn column) {
+        return column.length().orElse(column.scale().orElse(0));
+    }
+}
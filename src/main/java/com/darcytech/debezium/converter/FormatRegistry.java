@@ -0,0 +1,64 @@
+package com.darcytech.debezium.converter;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 进程内共享的格式、预先格式化好的表和时区索引。
+ * 同一个worker上的多个connector配置相同时共用一份，避免每次configure都重新编译pattern、重新生成几十万个字符串。
+ * <p>
+ * CustomConverter没有close回调，无法显式释放，这里用弱引用代替引用计数：
+ * 只要还有{@link ConverterConfig}引用着就一直共享，所有引用它的配置都被回收后条目随之清除
+ */
+final class FormatRegistry {
+
+    private static final Map<Object, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+
+    private FormatRegistry() {
+    }
+
+    /**
+     * key相同时返回已有的实例，否则用factory创建。相同key的并发调用只会创建一次，factory抛出的异常直接传给调用方
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T shared(Object key, Supplier<T> factory) {
+        purge();
+        Entry entry = ENTRIES.get(key);
+        Object value = entry == null ? null : entry.get();
+        if (value != null) {
+            return (T) value;
+        }
+        Object[] holder = new Object[1];
+        ENTRIES.compute(key, (k, old) -> {
+            Object existing = old == null ? null : old.get();
+            if (existing != null) {
+                holder[0] = existing;
+                return old;
+            }
+            holder[0] = factory.get();
+            return new Entry(k, holder[0], QUEUE);
+        });
+        return (T) holder[0];
+    }
+
+    private static void purge() {
+        for (Reference<?> reference = QUEUE.poll(); reference != null; reference = QUEUE.poll()) {
+            Entry entry = (Entry) reference;
+            ENTRIES.remove(entry.key, entry);
+        }
+    }
+
+    private static final class Entry extends WeakReference<Object> {
+        private final Object key;
+
+        private Entry(Object key, Object value, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+}
@@ -5,10 +5,14 @@ import io.debezium.spi.converter.RelationalColumn;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.connect.data.SchemaBuilder;
 
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
-import java.util.function.Consumer;
 
 /**
  * 处理Debezium时间转换的问题
@@ -27,99 +31,674 @@ import java.util.function.Consumer;
 @Slf4j
 public class MySqlDateTimeConverter implements CustomConverter<SchemaBuilder, RelationalColumn> {
 
-    private DateTimeFormatter dateFormatter = DateTimeFormatter.ISO_DATE;
-    private DateTimeFormatter timeFormatter = DateTimeFormatter.ISO_TIME;
-    private DateTimeFormatter datetimeFormatter = DateTimeFormatter.ISO_DATE_TIME;
-    private DateTimeFormatter timestampFormatter = DateTimeFormatter.ISO_DATE_TIME;
+    /**
+     * converterFor的分派表，Debezium给出的typeName本来就是大写的，直接命中时不需要再toUpperCase
+     */
+    private static final Map<String, String> SQL_TYPES = new HashMap<>();
 
-    private ZoneId timestampZoneId = ZoneId.systemDefault();
+    static {
+        for (String type : new String[]{"DATE", "TIME", "DATETIME", "TIMESTAMP"}) {
+            SQL_TYPES.put(type, type);
+        }
+    }
+
+    /**
+     * configure之后整体替换，每一列的converter在注册时捕获当时的配置
+     */
+    private volatile ConverterConfig config = ConverterConfig.parse(new Properties());
+    private final RegistrationSummary registrations = new RegistrationSummary(
+            summary -> log.info("registered {}", summary));
 
     @Override
     public void configure(Properties props) {
-        readProps(props, "format.date", p -> dateFormatter = DateTimeFormatter.ofPattern(p));
-        readProps(props, "format.time", p -> timeFormatter = DateTimeFormatter.ofPattern(p));
-        readProps(props, "format.datetime", p -> datetimeFormatter = DateTimeFormatter.ofPattern(p));
-        readProps(props, "format.timestamp", p -> timestampFormatter = DateTimeFormatter.ofPattern(p));
-        readProps(props, "format.timestamp.zone", z -> timestampZoneId = ZoneId.of(z));
+        config = ConverterConfig.parse(props);
     }
 
-    private void readProps(Properties properties, String settingKey, Consumer<String> callback) {
-        String settingValue = (String) properties.get(settingKey);
-        if (settingValue == null || settingValue.length() == 0) {
+    @Override
+    public void converterFor(RelationalColumn column, ConverterRegistration<SchemaBuilder> registration) {
+        String sqlType = sqlType(column.typeName());
+        if (sqlType == null) {
             return;
         }
-        try {
-            callback.accept(settingValue.trim());
-        } catch (IllegalArgumentException | DateTimeException e) {
-            log.error("The \"{}\" setting is illegal:{}", settingKey, settingValue);
-            throw e;
+        ConverterConfig config = this.config;
+        ColumnTemplate template = config.templates.computeIfAbsent(new ColumnTemplate.Key(sqlType, column),
+                key -> template(config, sqlType, column));
+        SchemaBuilder schemaBuilder = template.schemaBuilder();
+        Converter converter = template.converter;
+        Object zeroDate = template.zeroDate;
+        Object defaultValue = column.hasDefaultValue() ? column.defaultValue() : null;
+        Object convertedDefault = defaultValue == null ? null : converter.convert(defaultValue);
+        if (convertedDefault != null) {
+            schemaBuilder.defaultValue(convertedDefault);
+            zeroDate = zeroDate(config, converter, sqlType, template.optional, convertedDefault);
+        }
+        if (config.lastValueEnabled || config.cache != null || template.metrics != null) {
+            ColumnConverter columnConverter = new ColumnConverter(converter, config.lastValueEnabled, config.cache,
+                    template.formatId, template.unit, template.metrics);
+            if (config.metrics != null && config.lastValueEnabled) {
+                config.metrics.column(column.dataCollection(), column.name(), columnConverter);
+            }
+            converter = columnConverter;
+        }
+        if (!template.optional || !"TIME".equals(sqlType)) {
+            converter = zeroDateConverter(converter, sqlType, template.optional, zeroDate, template.metrics);
+        }
+        if (convertedDefault != null) {
+            converter = defaultValueConverter(converter, defaultValue, convertedDefault, template.metrics);
         }
+        registration.register(schemaBuilder, converter);
+        if (log.isDebugEnabled()) {
+            log.debug("register converter for {}.{} sqlType {} to schema {}", column.dataCollection(), column.name(),
+                    sqlType, schemaBuilder.name());
+        }
+        registrations.add(sqlType, column.dataCollection());
     }
 
-    @Override
-    public void converterFor(RelationalColumn column, ConverterRegistration<SchemaBuilder> registration) {
-        String sqlType = column.typeName().toUpperCase();
+    /**
+     * typeName不是DATE、TIME、DATETIME、TIMESTAMP时返回null
+     */
+    private static String sqlType(String typeName) {
+        String sqlType = SQL_TYPES.get(typeName);
+        if (sqlType != null) {
+            return sqlType;
+        }
+        for (String type : SQL_TYPES.values()) {
+            if (type.equalsIgnoreCase(typeName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 形状相同的列第一次注册时创建，不包含列的默认值
+     */
+    private static ColumnTemplate template(ConverterConfig config, String sqlType, RelationalColumn column) {
         SchemaBuilder schemaBuilder = null;
         Converter converter = null;
+        long formatId = 0;
+        EpochUnit unit = EpochUnit.of(column, sqlType, config.precisionMode);
+        boolean compact = "compact".equals(config.outputMode);
+        boolean logical = "logical".equals(config.outputMode);
+        if ("DATE".equals(sqlType) && logical) {
+            schemaBuilder = org.apache.kafka.connect.data.Date.builder();
+            converter = input -> convertDateLogical(config, input);
+            formatId = ColumnFormat.DATE_ID;
+        } else if ("DATE".equals(sqlType) && compact) {
+            schemaBuilder = SchemaBuilder.int32().name(config.outputSchemaName("date"));
+            converter = input -> convertDateCompact(config, input);
+            formatId = ColumnFormat.DATE_ID;
+        } else if ("DATE".equals(sqlType)) {
+            schemaBuilder = SchemaBuilder.string().name("com.darcytech.debezium.date.string");
+            converter = input -> convertDate(config, input);
+            formatId = ColumnFormat.DATE_ID;
+        }
+        if ("TIME".equals(sqlType) && logical) {
+            schemaBuilder = org.apache.kafka.connect.data.Time.builder();
+            converter = input -> convertTimeLogical(config, input, unit);
+            formatId = ColumnFormat.TIME_ID;
+        } else if ("TIME".equals(sqlType) && compact) {
+            schemaBuilder = SchemaBuilder.int32().name(config.outputSchemaName("time"));
+            converter = input -> convertTimeCompact(config, input, unit);
+            formatId = ColumnFormat.TIME_ID;
+        } else if ("TIME".equals(sqlType)) {
+            ColumnFormat format = config.columnFormat(config.timeFormat, column);
+            schemaBuilder = SchemaBuilder.string().name("com.darcytech.debezium.time.string");
+            converter = input -> convertTime(config, input, unit, format);
+            formatId = format.id;
+        }
+        // 带毫秒和不带毫秒的列对同一个输入的输出不同，formatId也要区分开
+        boolean millis = EpochUnit.precision(column) > 0;
+        if ("DATETIME".equals(sqlType) && logical) {
+            schemaBuilder = org.apache.kafka.connect.data.Timestamp.builder();
+            converter = input -> toDate(convertDateTimeEpoch(config, input, unit, EpochUnit.MILLIS));
+            formatId = ColumnFormat.DATETIME_ID;
+        } else if ("DATETIME".equals(sqlType) && compact) {
+            schemaBuilder = SchemaBuilder.int64().name(config.outputSchemaName("datetime"));
+            converter = input -> convertDateTimeCompact(config, input, unit, millis);
+            formatId = millis ? ColumnFormat.DATETIME_MILLIS_ID : ColumnFormat.DATETIME_ID;
+        } else if ("DATETIME".equals(sqlType) && config.outputUnit != null) {
+            schemaBuilder = SchemaBuilder.int64().name(config.outputSchemaName("datetime"));
+            converter = input -> convertDateTimeEpoch(config, input, unit, config.outputUnit);
+            formatId = ColumnFormat.DATETIME_ID;
+        } else if ("DATETIME".equals(sqlType)) {
+            ColumnFormat format = config.columnFormat(config.datetimeFormat, column);
+            schemaBuilder = SchemaBuilder.string().name("com.darcytech.debezium.datetime.string");
+            converter = input -> convertDateTime(config, input, unit, format);
+            formatId = format.id;
+        }
+        if ("TIMESTAMP".equals(sqlType) && logical) {
+            schemaBuilder = org.apache.kafka.connect.data.Timestamp.builder();
+            converter = input -> toDate(convertTimestampEpoch(input, unit, EpochUnit.MILLIS));
+            formatId = ColumnFormat.TIMESTAMP_ID;
+        } else if ("TIMESTAMP".equals(sqlType) && compact) {
+            schemaBuilder = SchemaBuilder.int64().name(config.outputSchemaName("timestamp"));
+            converter = input -> convertTimestampCompact(config, input, unit, millis);
+            formatId = millis ? ColumnFormat.TIMESTAMP_MILLIS_ID : ColumnFormat.TIMESTAMP_ID;
+        } else if ("TIMESTAMP".equals(sqlType) && config.outputUnit != null) {
+            schemaBuilder = SchemaBuilder.int64().name(config.outputSchemaName("timestamp"));
+            converter = input -> convertTimestampEpoch(input, unit, config.outputUnit);
+            formatId = ColumnFormat.TIMESTAMP_ID;
+        } else if ("TIMESTAMP".equals(sqlType)) {
+            ColumnFormat format = config.columnFormat(config.timestampFormat, column);
+            schemaBuilder = SchemaBuilder.string().name("com.darcytech.debezium.timestamp.string");
+            converter = input -> convertTimestamp(config, input, unit, format);
+            formatId = format.id;
+        }
+        // logical模式下超出一天的TIME只能输出null
+        boolean optional = config.optionalAlways || column.isOptional() || ("TIME".equals(sqlType) && logical);
+        Object zeroDate = zeroDate(config, converter, sqlType, optional, null);
+        TypeMetrics typeMetrics = config.metrics == null ? null : config.metrics.type(sqlType);
+        return new ColumnTemplate(schemaBuilder, converter, formatId, unit, typeMetrics, optional, zeroDate);
+    }
+
+    /**
+     * 没有显式赋值的行里就是列的默认值，直接返回注册时转换好的结果。
+     * 必须放在最外层：Debezium会用注册的converter再转换一次默认值并设置到SchemaBuilder上，
+     * SchemaBuilder只接受同一个实例，经过缓存拿到的是相等但不同的对象，build时会抛异常。
+     * 这样的行很多，不经过columnConverter，在这里计入转换数量和耗时
+     */
+    private static Converter defaultValueConverter(Converter converter, Object defaultValue, Object convertedDefault,
+                                                   TypeMetrics metrics) {
+        if (metrics == null) {
+            return input -> input == defaultValue || defaultValue.equals(input)
+                    ? convertedDefault : converter.convert(input);
+        }
+        return input -> {
+            long start = System.nanoTime();
+            if (input != defaultValue && !defaultValue.equals(input)) {
+                return converter.convert(input);
+            }
+            metrics.record(input, convertedDefault, System.nanoTime() - start);
+            return convertedDefault;
+        };
+    }
+
+    /**
+     * 零值日期('0000-00-00')的输出。NOT NULL的列在binlog里是null时也是零值日期，required的schema不能输出null，
+     * 与Debezium一样优先使用列的默认值，没有默认值时用1970-01-01 00:00:00代替
+     */
+    private static Object zeroDate(ConverterConfig config, Converter converter, String sqlType, boolean optional,
+                                   Object convertedDefault) {
+        boolean time = "TIME".equals(sqlType);
+        if ("literal".equals(config.zeroDateMode) && !time) {
+            return "DATE".equals(sqlType) ? config.zeroDateLiteral : config.zeroDatetimeLiteral;
+        }
+        if (optional && !"epoch".equals(config.zeroDateMode)) {
+            return null;
+        }
+        if (convertedDefault != null && (time || !"epoch".equals(config.zeroDateMode))) {
+            return convertedDefault;
+        }
+        Object epoch;
         if ("DATE".equals(sqlType)) {
-            schemaBuilder = SchemaBuilder.string().optional().name("com.darcytech.debezium.date.string");
-            converter = this::convertDate;
+            epoch = LocalDate.ofEpochDay(0);
+        } else if (time) {
+            epoch = Duration.ZERO;
+        } else if ("DATETIME".equals(sqlType)) {
+            epoch = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC);
+        } else {
+            epoch = ZonedDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC);
         }
-        if ("TIME".equals(sqlType)) {
-            schemaBuilder = SchemaBuilder.string().optional().name("com.darcytech.debezium.time.string");
-            converter = this::convertTime;
+        return converter.convert(epoch);
+    }
+
+    /**
+     * 在创建任何时间对象之前识别零值日期：
+     * <ul>
+     * <li>NOT NULL的列收到null</li>
+     * <li>以"0000-00-00"开头的字符串</li>
+     * <li>TIMESTAMP的epoch 0，MySQL的TIMESTAMP从1970-01-01 00:00:01开始，0只可能是零值</li>
+     * </ul>
+     * 零值日期不经过columnConverter，不计入它的命中和耗时，单独计数
+     */
+    private static Converter zeroDateConverter(Converter converter, String sqlType, boolean optional,
+                                               Object zeroDate, TypeMetrics metrics) {
+        boolean time = "TIME".equals(sqlType);
+        boolean timestamp = "TIMESTAMP".equals(sqlType);
+        return input -> {
+            boolean zero = input == null ? !optional : isZeroDate(input, time, timestamp);
+            if (!zero) {
+                return converter.convert(input);
+            }
+            if (metrics != null) {
+                metrics.zeroDate();
+            }
+            return zeroDate;
+        };
+    }
+
+    private static boolean isZeroDate(Object input, boolean time, boolean timestamp) {
+        if (!time && input instanceof String) {
+            return ((String) input).startsWith("0000-00-00");
+        }
+        if (!timestamp) {
+            return false;
         }
-        if ("DATETIME".equals(sqlType)) {
-            schemaBuilder = SchemaBuilder.string().optional().name("com.darcytech.debezium.datetime.string");
-            converter = this::convertDateTime;
+        if (input instanceof ZonedDateTime) {
+            ZonedDateTime zonedDateTime = (ZonedDateTime) input;
+            return zonedDateTime.toEpochSecond() == 0 && zonedDateTime.getNano() == 0;
         }
-        if ("TIMESTAMP".equals(sqlType)) {
-            schemaBuilder = SchemaBuilder.string().optional().name("com.darcytech.debezium.timestamp.string");
-            converter = this::convertTimestamp;
+        if (input instanceof Long) {
+            return (Long) input == 0;
         }
-        if (schemaBuilder != null) {
-            registration.register(schemaBuilder, converter);
-            log.info("register converter for sqlType {} to schema {}", sqlType, schemaBuilder.name());
+        if (input instanceof Timestamp) {
+            Timestamp jdbcTimestamp = (Timestamp) input;
+            return jdbcTimestamp.getTime() == 0 && jdbcTimestamp.getNanos() == 0;
         }
+        return false;
     }
 
-    private String convertDate(Object input) {
+    private static String convertDate(ConverterConfig config, Object input) {
         if (input instanceof LocalDate) {
-            return dateFormatter.format((LocalDate) input);
+            LocalDate date = (LocalDate) input;
+            String formatted = config.dateTable == null ? null : config.dateTable.get(date.toEpochDay());
+            if (formatted != null) {
+                return formatted;
+            }
+            return config.formatDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
         }
         if (input instanceof Integer) {
-            LocalDate date = LocalDate.ofEpochDay((Integer) input);
-            return dateFormatter.format(date);
+            return config.formatEpochDay((Integer) input);
+        }
+        if (input instanceof java.sql.Date) {
+            // 快照阶段通过JDBC读到的java.sql.Date，表示JVM默认时区当天的零点
+            java.sql.Date date = (java.sql.Date) input;
+            long localSecond = config.jdbcLocalSecond(date.getTime());
+            if (localSecond == Long.MIN_VALUE) {
+                LocalDate localDate = date.toLocalDate();
+                return config.formatDate(localDate.getYear(), localDate.getMonthValue(), localDate.getDayOfMonth());
+            }
+            return config.formatEpochDay(Math.floorDiv(localSecond, EpochCalendar.SECONDS_PER_DAY));
         }
         return null;
     }
 
-    private String convertTime(Object input) {
+    private static String convertTime(ConverterConfig config, Object input, EpochUnit unit, ColumnFormat format) {
         if (input instanceof Duration) {
             Duration duration = (Duration) input;
-            long seconds = duration.getSeconds();
-            int nano = duration.getNano();
-            LocalTime time = LocalTime.ofSecondOfDay(seconds).withNano(nano);
-            return timeFormatter.format(time);
+            return formatTime(format, duration.getSeconds(), duration.getNano());
+        }
+        if (input instanceof Long) {
+            long value = (Long) input;
+            return formatTime(format, unit.seconds(value), unit.nanos(value));
+        }
+        if (input instanceof Time) {
+            // 快照阶段通过JDBC读到的java.sql.Time，表示JVM默认时区1970-01-01当天的时间
+            long millis = ((Time) input).getTime();
+            long localSecond = config.jdbcLocalSecond(millis);
+            if (localSecond == Long.MIN_VALUE) {
+                return formatTime(format, ((Time) input).toLocalTime().toSecondOfDay(), 0);
+            }
+            return formatTime(format, Math.floorMod(localSecond, EpochCalendar.SECONDS_PER_DAY),
+                    (int) Math.floorMod(millis, 1000L) * 1_000_000);
         }
         return null;
     }
 
-    private String convertDateTime(Object input) {
+    private static String convertDateTime(ConverterConfig config, Object input, EpochUnit unit, ColumnFormat format) {
         if (input instanceof LocalDateTime) {
-            return datetimeFormatter.format((LocalDateTime) input);
+            return formatDateTime(format, (LocalDateTime) input);
+        }
+        if (input instanceof Long) {
+            // Debezium把DATETIME的墙上时间当作UTC换算成时间戳，不需要再加时区偏移量
+            long value = (Long) input;
+            return formatLocalSecond(format, unit.seconds(value), unit.nanos(value));
+        }
+        if (input instanceof Timestamp) {
+            // 快照阶段通过JDBC读到的java.sql.Timestamp，表示JVM默认时区的墙上时间
+            Timestamp timestamp = (Timestamp) input;
+            long localSecond = config.jdbcLocalSecond(timestamp.getTime());
+            if (localSecond == Long.MIN_VALUE) {
+                return formatDateTime(format, timestamp.toLocalDateTime());
+            }
+            return formatLocalSecond(format, localSecond, timestamp.getNanos());
         }
         return null;
     }
 
-    private String convertTimestamp(Object input) {
+    private static String convertTimestamp(ConverterConfig config, Object input, EpochUnit unit, ColumnFormat format) {
+        if (input instanceof String) {
+            ZonedDateTime zonedDateTime = parseTimestamp((String) input);
+            return zonedDateTime == null ? null : convertTimestamp(config, zonedDateTime, unit, format);
+        }
         if (input instanceof ZonedDateTime) {
             // mysql的timestamp会转成UTC存储，这里的zonedDatetime都是UTC时间
             ZonedDateTime zonedDateTime = (ZonedDateTime) input;
-            LocalDateTime localDateTime = zonedDateTime.withZoneSameInstant(timestampZoneId).toLocalDateTime();
-            return timestampFormatter.format(localDateTime);
+            return formatInstant(config, format, zonedDateTime.toEpochSecond(), zonedDateTime.getNano());
+        }
+        if (input instanceof Long) {
+            long value = (Long) input;
+            return formatInstant(config, format, unit.seconds(value), unit.nanos(value));
+        }
+        if (input instanceof Timestamp) {
+            // 快照阶段通过JDBC读到的java.sql.Timestamp，毫秒数就是UTC的时间戳
+            Timestamp timestamp = (Timestamp) input;
+            return formatInstant(config, format, Math.floorDiv(timestamp.getTime(), 1000L), timestamp.getNanos());
+        }
+        return null;
+    }
+
+    /**
+     * TIMESTAMP列的默认值(包括CURRENT_TIMESTAMP)是Debezium的ZonedTimestamp字符串，比如2021-01-28T09:29:04Z，
+     * 无法解析时返回null
+     */
+    private static ZonedDateTime parseTimestamp(String input) {
+        try {
+            return ZonedDateTime.parse(input, DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 把DATETIME的墙上时间当作datetimeZoneId的时间换算成时间戳
+     */
+    private static Long convertDateTimeEpoch(ConverterConfig config, Object input, EpochUnit unit,
+                                             EpochUnit outputUnit) {
+        long localSecond;
+        int nano;
+        if (input instanceof LocalDateTime) {
+            LocalDateTime datetime = (LocalDateTime) input;
+            localSecond = datetime.toEpochSecond(ZoneOffset.UTC);
+            nano = datetime.getNano();
+        } else if (input instanceof Long) {
+            long value = (Long) input;
+            localSecond = unit.seconds(value);
+            nano = unit.nanos(value);
+        } else if (input instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) input;
+            localSecond = config.jdbcLocalSecond(timestamp.getTime());
+            if (localSecond == Long.MIN_VALUE) {
+                localSecond = timestamp.toLocalDateTime().toEpochSecond(ZoneOffset.UTC);
+            }
+            nano = timestamp.getNanos();
+        } else {
+            return null;
+        }
+        return outputUnit.toEpoch(config.datetimeEpochSecond(localSecond), nano);
+    }
+
+    /**
+     * TIMESTAMP本身就是UTC的时间点，不需要换算时区
+     */
+    private static Long convertTimestampEpoch(Object input, EpochUnit unit, EpochUnit outputUnit) {
+        if (input instanceof String) {
+            ZonedDateTime zonedDateTime = parseTimestamp((String) input);
+            return zonedDateTime == null ? null : convertTimestampEpoch(zonedDateTime, unit, outputUnit);
+        }
+        if (input instanceof ZonedDateTime) {
+            ZonedDateTime zonedDateTime = (ZonedDateTime) input;
+            return outputUnit.toEpoch(zonedDateTime.toEpochSecond(), zonedDateTime.getNano());
+        }
+        if (input instanceof Long) {
+            long value = (Long) input;
+            return unit == outputUnit ? value : outputUnit.toEpoch(unit.seconds(value), unit.nanos(value));
+        }
+        if (input instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) input;
+            return outputUnit.toEpoch(Math.floorDiv(timestamp.getTime(), 1000L), timestamp.getNanos());
+        }
+        return null;
+    }
+
+    /**
+     * Connect的Date逻辑类型是UTC零点的java.util.Date
+     */
+    private static java.util.Date convertDateLogical(ConverterConfig config, Object input) {
+        if (input instanceof LocalDate) {
+            return config.logicalDate(((LocalDate) input).toEpochDay());
+        }
+        if (input instanceof Integer) {
+            return config.logicalDate((Integer) input);
+        }
+        if (input instanceof java.sql.Date) {
+            java.sql.Date date = (java.sql.Date) input;
+            long localSecond = config.jdbcLocalSecond(date.getTime());
+            if (localSecond == Long.MIN_VALUE) {
+                return config.logicalDate(date.toLocalDate().toEpochDay());
+            }
+            return config.logicalDate(Math.floorDiv(localSecond, EpochCalendar.SECONDS_PER_DAY));
+        }
+        return null;
+    }
+
+    /**
+     * Connect的Time逻辑类型是1970-01-01当天的毫秒数，超出一天或者为负数的TIME无法表示，返回null
+     */
+    private static java.util.Date convertTimeLogical(ConverterConfig config, Object input, EpochUnit unit) {
+        if (input instanceof Duration) {
+            Duration duration = (Duration) input;
+            return logicalTime(duration.getSeconds(), duration.getNano());
+        }
+        if (input instanceof Long) {
+            long value = (Long) input;
+            return logicalTime(unit.seconds(value), unit.nanos(value));
+        }
+        if (input instanceof Time) {
+            long millis = ((Time) input).getTime();
+            long localSecond = config.jdbcLocalSecond(millis);
+            if (localSecond == Long.MIN_VALUE) {
+                return logicalTime(((Time) input).toLocalTime().toSecondOfDay(), 0);
+            }
+            return logicalTime(Math.floorMod(localSecond, EpochCalendar.SECONDS_PER_DAY),
+                    (int) Math.floorMod(millis, 1000L) * 1_000_000);
+        }
+        return null;
+    }
+
+    private static java.util.Date logicalTime(long seconds, int nano) {
+        if (seconds < 0 || seconds >= EpochCalendar.SECONDS_PER_DAY) {
+            return null;
+        }
+        return new java.util.Date(seconds * 1000 + nano / 1000_000);
+    }
+
+    private static java.util.Date toDate(Long epochMillis) {
+        return epochMillis == null ? null : new java.util.Date(epochMillis);
+    }
+
+    private static Integer convertDateCompact(ConverterConfig config, Object input) {
+        if (input instanceof LocalDate) {
+            LocalDate date = (LocalDate) input;
+            return compactDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+        }
+        if (input instanceof Integer) {
+            return compactEpochDay((Integer) input);
+        }
+        if (input instanceof java.sql.Date) {
+            java.sql.Date date = (java.sql.Date) input;
+            long localSecond = config.jdbcLocalSecond(date.getTime());
+            if (localSecond == Long.MIN_VALUE) {
+                LocalDate localDate = date.toLocalDate();
+                return compactDate(localDate.getYear(), localDate.getMonthValue(), localDate.getDayOfMonth());
+            }
+            return compactEpochDay(Math.floorDiv(localSecond, EpochCalendar.SECONDS_PER_DAY));
+        }
+        return null;
+    }
+
+    private static Integer convertTimeCompact(ConverterConfig config, Object input, EpochUnit unit) {
+        if (input instanceof Duration) {
+            return compactTime(((Duration) input).getSeconds(), ((Duration) input).getNano());
+        }
+        if (input instanceof Long) {
+            long value = (Long) input;
+            return compactTime(unit.seconds(value), unit.nanos(value));
+        }
+        if (input instanceof Time) {
+            long localSecond = config.jdbcLocalSecond(((Time) input).getTime());
+            if (localSecond == Long.MIN_VALUE) {
+                return compactTime(((Time) input).toLocalTime().toSecondOfDay(), 0);
+            }
+            return compactTime(Math.floorMod(localSecond, EpochCalendar.SECONDS_PER_DAY), 0);
+        }
+        return null;
+    }
+
+    private static Long convertDateTimeCompact(ConverterConfig config, Object input, EpochUnit unit, boolean millis) {
+        if (input instanceof LocalDateTime) {
+            LocalDateTime datetime = (LocalDateTime) input;
+            return compactLocalSecond(datetime.toEpochSecond(ZoneOffset.UTC), datetime.getNano(), millis);
+        }
+        if (input instanceof Long) {
+            long value = (Long) input;
+            return compactLocalSecond(unit.seconds(value), unit.nanos(value), millis);
+        }
+        if (input instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) input;
+            long localSecond = config.jdbcLocalSecond(timestamp.getTime());
+            if (localSecond == Long.MIN_VALUE) {
+                localSecond = timestamp.toLocalDateTime().toEpochSecond(ZoneOffset.UTC);
+            }
+            return compactLocalSecond(localSecond, timestamp.getNanos(), millis);
+        }
+        return null;
+    }
+
+    /**
+     * 按format.timestamp.zone的墙上时间输出
+     */
+    private static Long convertTimestampCompact(ConverterConfig config, Object input, EpochUnit unit, boolean millis) {
+        if (input instanceof String) {
+            ZonedDateTime zonedDateTime = parseTimestamp((String) input);
+            return zonedDateTime == null ? null : convertTimestampCompact(config, zonedDateTime, unit, millis);
+        }
+        if (input instanceof ZonedDateTime) {
+            ZonedDateTime zonedDateTime = (ZonedDateTime) input;
+            return compactLocalSecond(config.timestampLocalSecond(zonedDateTime.toEpochSecond()),
+                    zonedDateTime.getNano(), millis);
+        }
+        if (input instanceof Long) {
+            long value = (Long) input;
+            return compactLocalSecond(config.timestampLocalSecond(unit.seconds(value)), unit.nanos(value), millis);
+        }
+        if (input instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) input;
+            long epochSecond = Math.floorDiv(timestamp.getTime(), 1000L);
+            return compactLocalSecond(config.timestampLocalSecond(epochSecond), timestamp.getNanos(), millis);
         }
         return null;
     }
 
+    private static int compactDate(int year, int month, int day) {
+        return year * 10000 + month * 100 + day;
+    }
+
+    private static int compactEpochDay(long epochDay) {
+        long date = EpochCalendar.civilDate(epochDay);
+        return compactDate(EpochCalendar.year(date), EpochCalendar.month(date), EpochCalendar.day(date));
+    }
+
+    /**
+     * 与{@link #formatDuration}一样，超过24小时的TIME小时数照常累加，负数取反，比如-12:30:00是-123000。
+     * 小数秒直接截掉，负数向0截断：-0.5秒是seconds=-1、nano=500000000，输出0而不是-1
+     */
+    private static int compactTime(long seconds, int nano) {
+        if (seconds < 0 && nano > 0) {
+            seconds++;
+        }
+        long absSeconds = Math.abs(seconds);
+        long value = absSeconds / 3600 * 10000 + absSeconds / 60 % 60 * 100 + absSeconds % 60;
+        return (int) (seconds < 0 ? -value : value);
+    }
+
+    /**
+     * yyyyMMddHHmmss，millis为true时再乘以1000加上毫秒数
+     */
+    private static long compactLocalSecond(long localSecond, int nano, boolean millis) {
+        long epochDay = Math.floorDiv(localSecond, EpochCalendar.SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(localSecond, EpochCalendar.SECONDS_PER_DAY);
+        long value = compactEpochDay(epochDay) * 1000000L + compactTime(secondOfDay, 0);
+        return millis ? value * 1000 + nano / 1000_000 : value;
+    }
+
+    private static String formatTime(ColumnFormat format, long seconds, int nano) {
+        if (seconds < 0 || seconds >= EpochCalendar.SECONDS_PER_DAY) {
+            return formatDuration(format, seconds, nano);
+        }
+        int secondOfDay = (int) seconds;
+        DateTimePattern timePattern = format.pattern;
+        if (timePattern == null) {
+            LocalTime time = LocalTime.ofSecondOfDay(secondOfDay).withNano(nano);
+            return format.formatter.format(time);
+        }
+        if (format.timeTable != null) {
+            return format.timeTable.get(secondOfDay, nano);
+        }
+        return timePattern.format(0, 0, 0, secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60, nano);
+    }
+
+    /**
+     * MySQL的TIME范围是-838:59:59到838:59:59，超出一天或者为负数时LocalTime会抛异常，
+     * 这里直接按时长输出，小时数可以超过24，负数前面加'-'，比如-12:30:00、100:00:00
+     */
+    private static String formatDuration(ColumnFormat format, long seconds, int nano) {
+        boolean negative = seconds < 0;
+        long absSeconds = seconds;
+        int absNano = nano;
+        if (negative) {
+            // Duration的纳秒部分总是正数，-0.5秒是seconds=-1、nano=500000000
+            absSeconds = nano == 0 ? -seconds : -(seconds + 1);
+            absNano = nano == 0 ? 0 : 1000_000_000 - nano;
+        }
+        long hours = absSeconds / 3600;
+        if (hours > Integer.MAX_VALUE) {
+            return Duration.ofSeconds(seconds, nano).toString();
+        }
+        // pattern无法编译时没法按时长输出，使用ISO格式
+        DateTimePattern pattern = format.pattern == null ? DateTimePattern.ISO_TIME : format.pattern;
+        // 小时最多10位数字，再加上负号
+        char[] buf = DateTimePattern.buffer(pattern.maxLength() + 11);
+        int pos = 0;
+        if (negative) {
+            buf[pos++] = '-';
+        }
+        pos = pattern.formatTo(buf, pos, 0, 0, 0,
+                (int) hours, (int) (absSeconds / 60 % 60), (int) (absSeconds % 60), absNano);
+        return new String(buf, 0, pos);
+    }
+
+    private static String formatInstant(ConverterConfig config, ColumnFormat format, long epochSecond, int nano) {
+        return formatLocalSecond(format, config.timestampLocalSecond(epochSecond), nano);
+    }
+
+    private static String formatDateTime(ColumnFormat format, LocalDateTime datetime) {
+        DateTimePattern pattern = format.pattern;
+        int year = datetime.getYear();
+        if (!isFastPathSupported(pattern, year)) {
+            return format.formatter.format(datetime);
+        }
+        if (format.dateTimeTable != null) {
+            return format.dateTimeTable.format(datetime.toLocalDate().toEpochDay(), year, datetime.getMonthValue(),
+                    datetime.getDayOfMonth(), datetime.toLocalTime().toSecondOfDay(), datetime.getNano());
+        }
+        return pattern.format(year, datetime.getMonthValue(), datetime.getDayOfMonth(),
+                datetime.getHour(), datetime.getMinute(), datetime.getSecond(), datetime.getNano());
+    }
+
+    /**
+     * localSecond是已经加上时区偏移量的epochSecond，整个过程不创建任何时间对象
+     */
+    private static String formatLocalSecond(ColumnFormat format, long localSecond, int nano) {
+        DateTimePattern pattern = format.pattern;
+        long epochDay = Math.floorDiv(localSecond, EpochCalendar.SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(localSecond, EpochCalendar.SECONDS_PER_DAY);
+        long date = EpochCalendar.civilDate(epochDay);
+        int year = EpochCalendar.year(date);
+        if (!isFastPathSupported(pattern, year)) {
+            return format.formatter.format(LocalDateTime.ofEpochSecond(localSecond, nano, ZoneOffset.UTC));
+        }
+        int month = EpochCalendar.month(date);
+        int day = EpochCalendar.day(date);
+        if (format.dateTimeTable != null) {
+            return format.dateTimeTable.format(epochDay, year, month, day, secondOfDay, nano);
+        }
+        return pattern.format(year, month, day, secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60, nano);
+    }
+
+    static boolean isFastPathSupported(DateTimePattern pattern, int year) {
+        return pattern != null && year >= DateTimePattern.MIN_YEAR && year <= DateTimePattern.MAX_YEAR;
+    }
+
 }
@@ -0,0 +1,81 @@
+package com.darcytech.debezium.converter;
+
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 汇总converter的注册情况。重放schema历史时每一列都会注册一次，逐列输出info日志会拖慢启动，
+ * 这里按类型计数，一个窗口内的第一次注册安排在{@link #INTERVAL_SECONDS}秒后输出这个窗口的汇总。
+ * converter没有重放结束的回调，由后台线程输出，最后一个窗口的汇总也不会一直等到下一次注册
+ */
+final class RegistrationSummary {
+
+    private static final long INTERVAL_SECONDS = 10;
+    private static final String[] TYPES = {"DATE", "TIME", "DATETIME", "TIMESTAMP"};
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "datetime-converter-registration-summary");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Consumer<String> sink;
+    private final int[] counts = new int[TYPES.length];
+    /**
+     * 相邻两次注册的表不同时计数，同一张表的列是连续注册的
+     */
+    private int tables;
+    private String lastTable;
+    private boolean scheduled;
+
+    RegistrationSummary(Consumer<String> sink) {
+        this.sink = sink;
+    }
+
+    synchronized void add(String sqlType, String table) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(sqlType)) {
+                counts[i]++;
+                break;
+            }
+        }
+        if (!Objects.equals(table, lastTable)) {
+            tables++;
+            lastTable = table;
+        }
+        if (!scheduled) {
+            scheduled = true;
+            FLUSHER.schedule(this::flush, INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 输出上一次汇总之后的注册情况，比如"12 DATE, 40 DATETIME converters for 9 tables"
+     */
+    private void flush() {
+        String summary = summarize();
+        if (summary != null) {
+            sink.accept(summary);
+        }
+    }
+
+    private synchronized String summarize() {
+        scheduled = false;
+        if (tables == 0) {
+            return null;
+        }
+        StringBuilder summary = new StringBuilder();
+        for (int i = 0; i < TYPES.length; i++) {
+            if (counts[i] > 0) {
+                summary.append(summary.length() == 0 ? "" : ", ").append(counts[i]).append(' ').append(TYPES[i]);
+                counts[i] = 0;
+            }
+        }
+        summary.append(" converters for ").append(tables).append(tables == 1 ? " table" : " tables");
+        tables = 0;
+        lastTable = null;
+        return summary.toString();
+    }
+}
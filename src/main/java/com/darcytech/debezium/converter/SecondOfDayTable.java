@@ -0,0 +1,76 @@
+package com.darcytech.debezium.converter;
+
+/**
+ * 一天只有86400秒，预先把每一秒格式化好，查表后只需要在末尾追加纳秒部分
+ */
+final class SecondOfDayTable {
+
+    private final String[] values;
+    private final DateTimePattern seconds;
+    private final DateTimePattern fraction;
+    private final int fractionLength;
+
+    private SecondOfDayTable(String[] values, DateTimePattern seconds, DateTimePattern fraction) {
+        this.values = values;
+        this.seconds = seconds;
+        this.fraction = fraction;
+        this.fractionLength = fraction == null ? 0 : fraction.maxLength();
+    }
+
+    /**
+     * pattern的纳秒部分不在末尾时无法建表，返回null
+     */
+    static SecondOfDayTable build(DateTimePattern pattern) {
+        DateTimePattern seconds = pattern.beforeFraction();
+        if (seconds == null) {
+            return null;
+        }
+        String[] values = new String[(int) EpochCalendar.SECONDS_PER_DAY];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = seconds.format(0, 0, 0, i / 3600, i / 60 % 60, i % 60, 0);
+        }
+        return new SecondOfDayTable(values, seconds, pattern.fromFraction());
+    }
+
+    /**
+     * 换成另一个pattern，秒以前的部分相同时复用已经格式化好的86400个字符串，只替换小数秒部分
+     */
+    SecondOfDayTable withPattern(DateTimePattern pattern) {
+        DateTimePattern seconds = pattern.beforeFraction();
+        if (seconds == null || !seconds.equals(this.seconds)) {
+            return build(pattern);
+        }
+        return new SecondOfDayTable(values, this.seconds, pattern.fromFraction());
+    }
+
+    int maxLength() {
+        int max = 0;
+        for (String value : values) {
+            max = Math.max(max, value.length());
+        }
+        return max + fractionLength;
+    }
+
+    /**
+     * 写入buf，返回写入后的位置，buf剩余空间至少要有{@link #maxLength()}
+     */
+    int formatTo(char[] buf, int pos, int secondOfDay, int nano) {
+        String prefix = values[secondOfDay];
+        int prefixLength = prefix.length();
+        prefix.getChars(0, prefixLength, buf, pos);
+        pos += prefixLength;
+        return fraction == null ? pos : fraction.formatTo(buf, pos, 0, 0, 0, 0, 0, 0, nano);
+    }
+
+    String get(int secondOfDay, int nano) {
+        String prefix = values[secondOfDay];
+        if (fraction == null) {
+            return prefix;
+        }
+        int prefixLength = prefix.length();
+        char[] buf = DateTimePattern.buffer(prefixLength + fractionLength);
+        prefix.getChars(0, prefixLength, buf, 0);
+        int length = fraction.formatTo(buf, prefixLength, 0, 0, 0, 0, 0, 0, nano);
+        return length == prefixLength ? prefix : new String(buf, 0, length);
+    }
+}
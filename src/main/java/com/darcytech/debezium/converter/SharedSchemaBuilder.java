@@ -0,0 +1,34 @@
+package com.darcytech.debezium.converter;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * build()时返回进程内唯一的Schema实例。
+ * Debezium会在注册的builder上继续设置默认值和参数后再build()，所以builder本身不能共用，只能在build()时合并。
+ * 相同类型、是否可空、输出方式的列共用同一个Schema，下游的AvroConverter、JsonConverter按Schema缓存时也能命中
+ */
+final class SharedSchemaBuilder extends SchemaBuilder {
+
+    /**
+     * 只收录没有默认值和参数的Schema，组合数只有类型、是否可空和输出方式那么多
+     */
+    private static final Map<Schema, Schema> SCHEMAS = new ConcurrentHashMap<>();
+
+    SharedSchemaBuilder(Schema.Type type) {
+        super(type);
+    }
+
+    @Override
+    public Schema build() {
+        Schema schema = super.build();
+        if (schema.defaultValue() != null || schema.parameters() != null) {
+            return schema;
+        }
+        Schema shared = SCHEMAS.putIfAbsent(schema, schema);
+        return shared == null ? schema : shared;
+    }
+}
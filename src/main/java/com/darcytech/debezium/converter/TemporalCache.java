@@ -0,0 +1,159 @@
+package com.darcytech.debezium.converter;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 所有列共享的有界缓存，key是(格式id, 是否JDBC类型, 秒, 纳秒)，value是格式化后的结果。
+ * 快照阶段的java.sql类型换算出的秒数是UTC的，和binlog里的值含义不同，要单独区分
+ * <p>
+ * 存储是4路组相联的数组，读写都不加锁；淘汰参考TinyLFU：用Count-Min Sketch估算访问频率，
+ * 组内满了以后，新值的频率要高于组内频率最低的值才会替换它，偶尔出现一次的历史数据挤不掉热点数据
+ */
+final class TemporalCache {
+
+    private static final int WAYS = 4;
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int bucketMask;
+    /**
+     * Count-Min Sketch，每个long里有16个4位的计数器，多线程下计数不精确也没关系
+     */
+    private final long[] sketch;
+    private final int sketchMask;
+    private final int sampleSize;
+    private int additions;
+
+    TemporalCache(int maximumSize) {
+        int buckets = Integer.highestOneBit(Math.max(maximumSize / WAYS, 1));
+        this.slots = new AtomicReferenceArray<>(buckets * WAYS);
+        this.bucketMask = buckets - 1;
+        int sketchSize = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1;
+        this.sketch = new long[sketchSize];
+        this.sketchMask = sketchSize - 1;
+        this.sampleSize = 10 * maximumSize;
+    }
+
+    /**
+     * 没有缓存时返回null
+     */
+    Object get(long formatId, boolean jdbc, long seconds, int nano) {
+        long hash = hash(formatId, jdbc, seconds, nano);
+        increment(hash);
+        int base = bucket(hash);
+        for (int i = 0; i < WAYS; i++) {
+            Entry entry = slots.get(base + i);
+            if (entry != null && entry.matches(formatId, jdbc, seconds, nano)) {
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    void put(long formatId, boolean jdbc, long seconds, int nano, Object value) {
+        long hash = hash(formatId, jdbc, seconds, nano);
+        int base = bucket(hash);
+        int victim = -1;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = 0; i < WAYS; i++) {
+            Entry entry = slots.get(base + i);
+            if (entry == null) {
+                victim = i;
+                victimFrequency = -1;
+                break;
+            }
+            if (entry.matches(formatId, jdbc, seconds, nano)) {
+                return;
+            }
+            int frequency = frequency(entry.hash);
+            if (frequency < victimFrequency) {
+                victim = i;
+                victimFrequency = frequency;
+            }
+        }
+        if (victimFrequency < 0 || frequency(hash) > victimFrequency) {
+            slots.lazySet(base + victim, new Entry(hash, formatId, jdbc, seconds, nano, value));
+        }
+    }
+
+    private int bucket(long hash) {
+        return ((int) (hash >>> 32) & bucketMask) * WAYS;
+    }
+
+    private void increment(long hash) {
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hash, i);
+            int offset = counterOffset(hash, i);
+            long counter = sketch[index];
+            if (((counter >>> offset) & 0xF) != 0xF) {
+                sketch[index] = counter + (1L << offset);
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private int frequency(long hash) {
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int count = (int) ((sketch[indexOf(hash, i)] >>> counterOffset(hash, i)) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 所有计数器减半，让频率随时间衰减
+     */
+    private void reset() {
+        additions = 0;
+        for (int i = 0; i < sketch.length; i++) {
+            sketch[i] = (sketch[i] >>> 1) & RESET_MASK;
+        }
+    }
+
+    private int indexOf(long hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        return (int) (h ^ (h >>> 32)) & sketchMask;
+    }
+
+    private static int counterOffset(long hash, int row) {
+        return ((int) (hash >>> (row << 3)) & 0xF) << 2;
+    }
+
+    private static long hash(long formatId, boolean jdbc, long seconds, int nano) {
+        long h = seconds * 0x9e3779b97f4a7c15L + nano;
+        h = (h ^ (jdbc ? ~formatId : formatId)) * 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 31;
+        h *= 0x94d049bb133111ebL;
+        return h ^ (h >>> 29);
+    }
+
+    private static final class Entry {
+        private final long hash;
+        private final long formatId;
+        private final boolean jdbc;
+        private final long seconds;
+        private final int nano;
+        private final Object value;
+
+        private Entry(long hash, long formatId, boolean jdbc, long seconds, int nano, Object value) {
+            this.hash = hash;
+            this.formatId = formatId;
+            this.jdbc = jdbc;
+            this.seconds = seconds;
+            this.nano = nano;
+            this.value = value;
+        }
+
+        private boolean matches(long formatId, boolean jdbc, long seconds, int nano) {
+            return this.seconds == seconds && this.nano == nano && this.formatId == formatId && this.jdbc == jdbc;
+        }
+    }
+}
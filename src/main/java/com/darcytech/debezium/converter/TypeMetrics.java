@@ -0,0 +1,50 @@
+package com.darcytech.debezium.converter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 某一种SQL类型的转换统计，同一个{@link MySqlDateTimeConverter}里相同类型的列共用一个
+ */
+final class TypeMetrics {
+
+    private final LongAdder converted = new LongAdder();
+    private final LongAdder nulls = new LongAdder();
+    private final LongAdder unsupported = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder zeroDates = new LongAdder();
+
+    void record(Object input, Object output, long elapsedNanos) {
+        if (input == null) {
+            nulls.increment();
+        } else if (output == null) {
+            unsupported.increment();
+        } else {
+            converted.increment();
+        }
+        nanos.add(elapsedNanos);
+    }
+
+    void zeroDate() {
+        zeroDates.increment();
+    }
+
+    long converted() {
+        return converted.sum();
+    }
+
+    long nulls() {
+        return nulls.sum();
+    }
+
+    long unsupported() {
+        return unsupported.sum();
+    }
+
+    long nanos() {
+        return nanos.sum();
+    }
+
+    long zeroDates() {
+        return zeroDates.sum();
+    }
+}
@@ -0,0 +1,148 @@
+package com.darcytech.debezium.converter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * 把时区在一段年份内的所有夏令时切换点预先展开成有序数组，
+ * 通过二分查找得到偏移量，代替每次都去查{@link ZoneRules}
+ */
+final class ZoneOffsetIndex {
+
+    /**
+     * epochSecond不在年份区间内时返回该值，调用方应回退到ZoneRules
+     */
+    static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /**
+     * bounds[i]到bounds[i + 1]之间的偏移量是offsets[i]，第一个和最后一个元素是年份区间的两端
+     */
+    private final long[] bounds;
+    private final int[] offsets;
+    /**
+     * 按墙上时间划分的区间，localBounds[i]到localBounds[i + 1]之间的墙上时间使用offsets[i]。
+     * 夏令时开始时跳过的时间和结束时重复的时间都使用切换前的偏移量，与{@link java.time.ZonedDateTime#ofLocal}一致
+     */
+    private final long[] localBounds;
+    /**
+     * binlog中的timestamp基本是单调递增的，记住上一次命中的区间。
+     * 多线程下读到旧值也只是多做一次二分查找，所以不需要volatile
+     */
+    private int lastIndex;
+    private int lastLocalIndex;
+
+    private ZoneOffsetIndex(long[] bounds, int[] offsets) {
+        this.bounds = bounds;
+        this.offsets = offsets;
+        int last = offsets.length - 1;
+        this.localBounds = new long[bounds.length];
+        localBounds[0] = bounds[0] == Long.MIN_VALUE ? Long.MIN_VALUE : bounds[0] + offsets[0];
+        for (int i = 1; i <= last; i++) {
+            localBounds[i] = bounds[i] + Math.max(offsets[i - 1], offsets[i]);
+        }
+        localBounds[last + 1] = bounds[last + 1] == Long.MAX_VALUE ? Long.MAX_VALUE : bounds[last + 1] + offsets[last];
+    }
+
+    /**
+     * 固定偏移量的时区只有一个没有边界的区间，其他时区同{@link #build(ZoneId, String)}
+     */
+    static ZoneOffsetIndex of(ZoneId zoneId, String yearRange) {
+        ZoneRules rules = zoneId.getRules();
+        if (rules.isFixedOffset()) {
+            int offset = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+            return new ZoneOffsetIndex(new long[]{Long.MIN_VALUE, Long.MAX_VALUE}, new int[]{offset});
+        }
+        return build(zoneId, yearRange);
+    }
+
+    /**
+     * 解析"1970..2100"格式的年份区间，区间两端都包含在内
+     */
+    static ZoneOffsetIndex build(ZoneId zoneId, String yearRange) {
+        int separator = yearRange.indexOf("..");
+        if (separator < 0) {
+            throw new IllegalArgumentException("year range must be like 1970..2100");
+        }
+        int firstYear = Integer.parseInt(yearRange.substring(0, separator).trim());
+        int lastYear = Integer.parseInt(yearRange.substring(separator + 2).trim());
+        if (lastYear < firstYear) {
+            throw new IllegalArgumentException("year range must not be empty");
+        }
+        ZoneRules rules = zoneId.getRules();
+        long start = LocalDate.of(firstYear, 1, 1).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        long end = LocalDate.of(lastYear + 1, 1, 1).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+
+        long[] bounds = new long[16];
+        int[] offsets = new int[16];
+        int size = 0;
+        bounds[0] = start;
+        offsets[0] = rules.getOffset(Instant.ofEpochSecond(start)).getTotalSeconds();
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(start));
+        while (transition != null && transition.toEpochSecond() < end) {
+            size++;
+            if (size + 1 >= bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            bounds[size] = transition.toEpochSecond();
+            offsets[size] = transition.getOffsetAfter().getTotalSeconds();
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        bounds[size + 1] = end;
+        return new ZoneOffsetIndex(Arrays.copyOf(bounds, size + 2), Arrays.copyOf(offsets, size + 1));
+    }
+
+    /**
+     * 返回epochSecond对应的偏移秒数，不在年份区间内时返回{@link #UNKNOWN}
+     */
+    int offsetAt(long epochSecond) {
+        int index = lastIndex;
+        if (epochSecond >= bounds[index] && epochSecond < bounds[index + 1]) {
+            return offsets[index];
+        }
+        index = search(bounds, epochSecond);
+        if (index < 0) {
+            return UNKNOWN;
+        }
+        lastIndex = index;
+        return offsets[index];
+    }
+
+    /**
+     * 返回墙上时间(已经加上偏移量的epochSecond)对应的偏移秒数，不在年份区间内时返回{@link #UNKNOWN}
+     */
+    int offsetAtLocal(long localSecond) {
+        int index = lastLocalIndex;
+        if (localSecond >= localBounds[index] && localSecond < localBounds[index + 1]) {
+            return offsets[index];
+        }
+        index = search(localBounds, localSecond);
+        if (index < 0) {
+            return UNKNOWN;
+        }
+        lastLocalIndex = index;
+        return offsets[index];
+    }
+
+    /**
+     * 找到最后一个bounds[low] <= second的位置，超出区间时返回-1
+     */
+    private static int search(long[] bounds, long second) {
+        if (second < bounds[0] || second >= bounds[bounds.length - 1]) {
+            return -1;
+        }
+        int low = 0;
+        int length = bounds.length - 1;
+        while (length > 1) {
+            int half = length >>> 1;
+            low = bounds[low + half] <= second ? low + half : low;
+            length -= half;
+        }
+        return low;
+    }
+}
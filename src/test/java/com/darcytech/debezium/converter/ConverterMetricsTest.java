@@ -0,0 +1,90 @@
+package com.darcytech.debezium.converter;
+
+import io.debezium.spi.converter.CustomConverter;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConverterMetricsTest {
+
+    private static final MBeanServer SERVER = ManagementFactory.getPlatformMBeanServer();
+
+    @Test
+    public void columnsListLastValueHits() throws Exception {
+        MySqlDateTimeConverter converter = converter("columns", "true");
+        CustomConverter.Converter date = new TestColumn("db.orders", "created", "DATE", -1, true, null)
+                .register(converter);
+        date.convert(LocalDate.of(2021, 1, 28));
+        date.convert(LocalDate.of(2021, 1, 28));
+        date.convert(LocalDate.of(2021, 1, 29));
+
+        TabularData columns = (TabularData) SERVER.getAttribute(objectName("columns"), "Columns");
+        CompositeData row = columns.get(new Object[]{"db.orders", "created"});
+        assertNotNull(row);
+        assertEquals(1L, row.get("hits"));
+        assertEquals(2L, row.get("misses"));
+        assertEquals("2021-01-29", date.convert(LocalDate.of(2021, 1, 29)));
+    }
+
+    @Test
+    public void defaultValuesAreCounted() throws Exception {
+        MySqlDateTimeConverter converter = converter("defaults", "true");
+        LocalDateTime defaultValue = LocalDateTime.of(2021, 1, 28, 17, 29, 4);
+        CustomConverter.Converter datetime = new TestColumn("db.orders", "updated", "DATETIME", 0, false, defaultValue)
+                .register(converter);
+        assertEquals("2021-01-28T17:29:04", datetime.convert(defaultValue));
+        assertEquals("2021-01-28T17:29:04", datetime.convert(LocalDateTime.of(2021, 1, 28, 17, 29, 4)));
+        assertEquals("2021-01-28T17:29:05", datetime.convert(LocalDateTime.of(2021, 1, 28, 17, 29, 5)));
+
+        assertEquals(3L, SERVER.getAttribute(objectName("defaults"), "DatetimeConverted"));
+    }
+
+    @Test
+    public void mbeanIsUnregisteredAfterConfigurationIsCollected() throws Exception {
+        // 开启column.last.value.enabled时MBean会记录每一列的converter，不能因此让配置一直存活
+        for (String lastValue : new String[]{"true", "false"}) {
+            String connector = "collected-" + lastValue;
+            registerAndDrop(connector, lastValue);
+            ObjectName objectName = objectName(connector);
+            for (int i = 0; i < 100 && SERVER.isRegistered(objectName); i++) {
+                System.gc();
+                Thread.sleep(50);
+            }
+            assertFalse("column.last.value.enabled=" + lastValue, SERVER.isRegistered(objectName));
+        }
+    }
+
+    private static void registerAndDrop(String connector, String lastValue) throws Exception {
+        MySqlDateTimeConverter converter = converter(connector, lastValue);
+        CustomConverter.Converter datetime = new TestColumn("DATETIME", 0).register(converter);
+        datetime.convert(LocalDate.of(2021, 1, 28).atStartOfDay());
+        assertTrue(SERVER.isRegistered(objectName(connector)));
+    }
+
+    private static MySqlDateTimeConverter converter(String connector, String lastValue) {
+        Properties props = new Properties();
+        props.setProperty("metrics.enabled", "true");
+        props.setProperty("metrics.connector", connector);
+        props.setProperty("column.last.value.enabled", lastValue);
+        MySqlDateTimeConverter converter = new MySqlDateTimeConverter();
+        converter.configure(props);
+        return converter;
+    }
+
+    private static ObjectName objectName(String connector) throws Exception {
+        return new ObjectName("com.darcytech.debezium:type=datetime-converter,connector="
+                + ObjectName.quote(connector) + ",name=" + ObjectName.quote("datetime"));
+    }
+}
@@ -0,0 +1,190 @@
+package com.darcytech.debezium.converter;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * 编译后的pattern以及预先格式化的表，输出必须和DateTimeFormatter完全一致
+ */
+public class DateTimePatternTest {
+
+    private static final String[] PATTERNS = {
+            "yyyy-MM-dd",
+            "uuuu-MM-dd",
+            "y-M-d",
+            "yy/M/d H:m:s",
+            "dd.MM.yyyy",
+            "yyyy-MM-dd HH:mm:ss",
+            "yyyy-MM-dd HH:mm:ss.S",
+            "yyyy-MM-dd HH:mm:ss.SSS",
+            "yyyy-MM-dd'T'HH:mm:ss.SSSSSS",
+            "yyyyMMddHHmmssSSS",
+            "HH:mm:ss.SSSSSSSSS",
+            "ss.SSS' s'",
+            "'at' HH 'o''clock'",
+            "''yyyy''",
+            "yyyy'年'MM'月'dd'日' HH:mm",
+    };
+
+    private static final LocalDate[] DATES = {
+            LocalDate.of(1, 1, 1),
+            LocalDate.of(5, 6, 7),
+            LocalDate.of(99, 12, 31),
+            LocalDate.of(1969, 12, 31),
+            LocalDate.of(1970, 1, 1),
+            LocalDate.of(2000, 2, 29),
+            LocalDate.of(2021, 1, 28),
+            LocalDate.of(2069, 10, 9),
+            LocalDate.of(9999, 12, 31),
+    };
+
+    private static final LocalTime[] TIMES = {
+            LocalTime.MIDNIGHT,
+            LocalTime.of(0, 0, 0, 1),
+            LocalTime.of(1, 2, 3, 1_000),
+            LocalTime.of(9, 5, 7, 100_000_000),
+            LocalTime.of(12, 0, 0, 120_000_000),
+            LocalTime.of(17, 29, 4, 123_456_789),
+            LocalTime.of(23, 59, 59, 999_999_999),
+    };
+
+    @Test
+    public void compiledPatternsFormatLikeDateTimeFormatter() {
+        for (String pattern : PATTERNS) {
+            DateTimePattern compiled = DateTimePattern.compile(pattern);
+            assertNotNull(pattern, compiled);
+            assertParity(pattern, DateTimeFormatter.ofPattern(pattern), compiled);
+            assertParity(pattern, compiled.toFormatter(), compiled);
+        }
+    }
+
+    @Test
+    public void isoPatternsFormatLikeIsoFormatters() {
+        assertParity("ISO_DATE", DateTimeFormatter.ISO_LOCAL_DATE, DateTimePattern.ISO_DATE);
+        assertParity("ISO_TIME", DateTimeFormatter.ISO_LOCAL_TIME, DateTimePattern.ISO_TIME);
+        assertParity("ISO_DATE_TIME", DateTimeFormatter.ISO_LOCAL_DATE_TIME, DateTimePattern.ISO_DATE_TIME);
+    }
+
+    @Test
+    public void unsupportedPatternsAreNotCompiled() {
+        for (String pattern : new String[]{"yyyy-MMM-dd", "EEE HH:mm", "yyyy[-MM]", "HH:mm a", "yyyy-MM-dd'T"}) {
+            assertNull(pattern, DateTimePattern.compile(pattern));
+        }
+    }
+
+    @Test
+    public void withFractionMatchesEquivalentPatterns() {
+        assertWithFraction("HH:mm:ss.SSS", 0, false, DateTimeFormatter.ofPattern("HH:mm:ss"));
+        assertWithFraction("HH:mm:ss.SSS", 6, false, DateTimeFormatter.ofPattern("HH:mm:ss.SSSSSS"));
+        assertWithFraction("HH:mm:ss.SSS", 6, true, new DateTimeFormatterBuilder().appendPattern("HH:mm:ss")
+                .appendFraction(ChronoField.NANO_OF_SECOND, 0, 6, true).toFormatter());
+        assertWithFraction("yyyy-MM-dd HH:mm:ss", 3, false, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS"));
+        assertWithFraction("yyyy-MM-dd HH:mm:ss.SSS", 9, false,
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSSSS"));
+        // 没有'.'时不会加上小数点
+        assertWithFraction("HHmmssSSS", 6, false, DateTimeFormatter.ofPattern("HHmmssSSSSSS"));
+        assertWithFraction("HHmmssSSS", 0, false, DateTimeFormatter.ofPattern("HHmmss"));
+        // S..S后面的字面量保留
+        assertWithFraction("ss.SSS' s'", 0, false, DateTimeFormatter.ofPattern("ss' s'"));
+        assertWithFraction("ISO", 3, false, DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS"));
+
+        DateTimePattern date = DateTimePattern.compile("yyyy-MM-dd");
+        assertSame(date, date.withFraction(3, false));
+    }
+
+    @Test
+    public void secondOfDayTableFormatsLikeDateTimeFormatter() {
+        for (String pattern : new String[]{"HH:mm:ss", "HH:mm:ss.SSS", "H:m:s.SSSSSSSSS"}) {
+            DateTimePattern compiled = DateTimePattern.compile(pattern);
+            SecondOfDayTable table = SecondOfDayTable.build(compiled);
+            assertNotNull(pattern, table);
+            assertTable(pattern, DateTimeFormatter.ofPattern(pattern), table);
+
+            DateTimePattern derived = compiled.withFraction(6, true);
+            assertTable(pattern + " trimmed to 6", derived.toFormatter(), table.withPattern(derived));
+        }
+        assertNull(SecondOfDayTable.build(DateTimePattern.compile("ss.SSS mm")));
+    }
+
+    @Test
+    public void epochDayTableCoversItsRange() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+        EpochDayTable table = EpochDayTable.build("1969-12-01..1970-02-28",
+                epochDay -> formatter.format(LocalDate.ofEpochDay(epochDay)));
+        for (LocalDate date = LocalDate.of(1969, 12, 1); !date.isAfter(LocalDate.of(1970, 2, 28));
+             date = date.plusDays(1)) {
+            assertEquals(formatter.format(date), table.get(date.toEpochDay()));
+        }
+        assertNull(table.get(LocalDate.of(1969, 11, 30).toEpochDay()));
+        assertNull(table.get(LocalDate.of(1970, 3, 1).toEpochDay()));
+
+        assertThrows(IllegalArgumentException.class, () -> EpochDayTable.parseRange("1970-01-01"));
+        assertThrows(IllegalArgumentException.class, () -> EpochDayTable.parseRange("1970-01-02..1970-01-01"));
+        assertThrows(IllegalArgumentException.class, () -> EpochDayTable.parseRange("1970-01-01..2300-01-01"));
+    }
+
+    @Test
+    public void dateTimeTableFormatsLikeDateTimeFormatter() {
+        long[] range = EpochDayTable.parseRange("1970-01-01..2030-12-31");
+        for (String pattern : new String[]{"yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd'T'HH:mm:ss.SSS", "dd.MM.yy H:m:s.S"}) {
+            DateTimePattern compiled = DateTimePattern.compile(pattern);
+            DateTimeTable table = DateTimeTable.build(compiled, range);
+            assertNotNull(pattern, table);
+            // 表内和表外的日期
+            assertTable(pattern, DateTimeFormatter.ofPattern(pattern), table);
+
+            DateTimePattern derived = compiled.withFraction(9, false);
+            assertTable(pattern + " with 9 digits", derived.toFormatter(), table.withPattern(derived, range));
+        }
+        assertNull(DateTimeTable.build(DateTimePattern.compile("HH:mm yyyy-MM-dd"), range));
+        assertNull(DateTimeTable.build(DateTimePattern.compile("yyyy-MM-dd"), range));
+    }
+
+    private static void assertParity(String message, DateTimeFormatter expected, DateTimePattern actual) {
+        for (LocalDate date : DATES) {
+            for (LocalTime time : TIMES) {
+                LocalDateTime value = LocalDateTime.of(date, time);
+                assertEquals(message + " " + value, expected.format(value), actual.format(date.getYear(),
+                        date.getMonthValue(), date.getDayOfMonth(), time.getHour(), time.getMinute(),
+                        time.getSecond(), time.getNano()));
+            }
+        }
+    }
+
+    private static void assertWithFraction(String pattern, int digits, boolean trim, DateTimeFormatter expected) {
+        DateTimePattern compiled = "ISO".equals(pattern) ? DateTimePattern.ISO_DATE_TIME : DateTimePattern.compile(pattern);
+        DateTimePattern derived = compiled.withFraction(digits, trim);
+        String message = pattern + " withFraction(" + digits + ", " + trim + ")";
+        assertParity(message, expected, derived);
+        assertParity(message, derived.toFormatter(), derived);
+    }
+
+    private static void assertTable(String message, DateTimeFormatter expected, SecondOfDayTable table) {
+        for (LocalTime time : TIMES) {
+            assertEquals(message + " " + time, expected.format(time), table.get(time.toSecondOfDay(), time.getNano()));
+        }
+    }
+
+    private static void assertTable(String message, DateTimeFormatter expected, DateTimeTable table) {
+        for (LocalDate date : DATES) {
+            for (LocalTime time : TIMES) {
+                LocalDateTime value = LocalDateTime.of(date, time);
+                assertEquals(message + " " + value, expected.format(value), table.format(date.toEpochDay(),
+                        date.getYear(), date.getMonthValue(), date.getDayOfMonth(), time.toSecondOfDay(),
+                        time.getNano()));
+            }
+        }
+    }
+}
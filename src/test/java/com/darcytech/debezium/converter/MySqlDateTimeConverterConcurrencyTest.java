@@ -0,0 +1,180 @@
+package com.darcytech.debezium.converter;
+
+import io.debezium.spi.converter.CustomConverter;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 多个线程同时调用同一批注册好的converter，每一列上一次的输入、共享的TemporalCache、
+ * ZoneOffsetIndex的查找结果和线程本地的缓冲区都会被并发访问，每个结果都要和DateTimeFormatter的输出一致
+ */
+public class MySqlDateTimeConverterConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 100_000;
+    private static final ZoneId ZONE = ZoneId.of("America/New_York");
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+    private static final DateTimeFormatter DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
+
+    @Test
+    public void sharedConvertersMatchDateTimeFormatter() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("format.date", "yyyy-MM-dd");
+        props.setProperty("format.time", "HH:mm:ss.SSS");
+        props.setProperty("format.datetime", "yyyy-MM-dd HH:mm:ss.SSS");
+        props.setProperty("format.timestamp", "yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
+        props.setProperty("format.timestamp.zone", ZONE.getId());
+        // 表只覆盖一部分日期，表外的值走DateTimePattern和DateTimeFormatter
+        props.setProperty("date.table.range", "1990-01-01..2030-12-31");
+        props.setProperty("time.table.enabled", "true");
+        props.setProperty("datetime.table.enabled", "true");
+        props.setProperty("timestamp.table.enabled", "true");
+        // 缓存远小于取值的个数，并发写入时会不停地覆盖
+        props.setProperty("cache.size", "64");
+        MySqlDateTimeConverter converter = new MySqlDateTimeConverter();
+        converter.configure(props);
+
+        List<Case<?>> cases = new ArrayList<>();
+        cases.add(new Case<>(register(converter, "DATE", -1), dates(), DATE::format));
+        cases.add(new Case<>(register(converter, "TIME", 3), times(), d -> TIME.format(LocalTime.ofNanoOfDay(d.toNanos()))));
+        cases.add(new Case<>(register(converter, "DATETIME", 3), datetimes(), DATETIME::format));
+        cases.add(new Case<>(register(converter, "TIMESTAMP", 6), timestamps(),
+                z -> TIMESTAMP.format(z.withZoneSameInstant(ZONE))));
+
+        Queue<String> mismatches = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            tasks.add(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < ITERATIONS && mismatches.size() < 10; i++) {
+                    // 连续几次用相同的值，命中每一列上一次的输入
+                    Case<?> c = cases.get(random.nextInt(cases.size()));
+                    int index = random.nextInt(c.values.size());
+                    for (int repeat = random.nextInt(3); repeat >= 0; repeat--) {
+                        c.check(index, mismatches);
+                    }
+                }
+                return null;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+        assertEquals("[]", mismatches.toString());
+    }
+
+    private static CustomConverter.Converter register(MySqlDateTimeConverter converter, String type, int length) {
+        return new TestColumn(type, length).register(converter);
+    }
+
+    private static List<LocalDate> dates() {
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = LocalDate.of(1989, 12, 1); date.isBefore(LocalDate.of(1990, 2, 1)); date = date.plusDays(1)) {
+            dates.add(date);
+        }
+        dates.add(LocalDate.of(1, 1, 1));
+        dates.add(LocalDate.of(2000, 2, 29));
+        dates.add(LocalDate.of(2030, 12, 31));
+        dates.add(LocalDate.of(2031, 1, 1));
+        dates.add(LocalDate.of(9999, 12, 31));
+        return dates;
+    }
+
+    private static List<Duration> times() {
+        List<Duration> times = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            times.add(Duration.ofSeconds(i * 431L, i * 1_234_567L % 1_000_000_000));
+        }
+        times.add(Duration.ZERO);
+        times.add(Duration.ofSeconds(86399, 999_000_000));
+        return times;
+    }
+
+    private static List<LocalDateTime> datetimes() {
+        List<LocalDateTime> datetimes = new ArrayList<>();
+        for (LocalDate date : dates()) {
+            for (Duration time : new Duration[]{Duration.ZERO, Duration.ofSeconds(63_000, 120_000_000),
+                    Duration.ofSeconds(86_399, 999_000_000)}) {
+                datetimes.add(date.atStartOfDay().plus(time));
+            }
+        }
+        return datetimes;
+    }
+
+    private static List<ZonedDateTime> timestamps() {
+        List<ZonedDateTime> timestamps = new ArrayList<>();
+        // 夏令时切换前后，以及ZoneOffsetIndex覆盖的年份之外
+        for (Instant transition : new Instant[]{Instant.parse("2021-03-14T07:00:00Z"),
+                Instant.parse("2021-11-07T06:00:00Z"), Instant.parse("1969-10-26T06:00:00Z"),
+                Instant.parse("2101-03-13T07:00:00Z")}) {
+            for (int offset = -7200; offset <= 7200; offset += 900) {
+                timestamps.add(transition.plusSeconds(offset).plusNanos((offset + 7200) * 1_000L).atZone(ZoneOffset.UTC));
+            }
+        }
+        timestamps.add(Instant.EPOCH.plusNanos(1_000).atZone(ZoneOffset.UTC));
+        return timestamps;
+    }
+
+    private static final class Case<T> {
+        private final CustomConverter.Converter converter;
+        private final List<T> values;
+        private final Function<T, String> expected;
+
+        private Case(CustomConverter.Converter converter, List<T> values, Function<T, String> expected) {
+            this.converter = converter;
+            this.values = values;
+            this.expected = expected;
+        }
+
+        private void check(int index, Queue<String> mismatches) {
+            T value = values.get(index);
+            String expectedValue = expected.apply(value);
+            Object actual = converter.convert(value);
+            if (!expectedValue.equals(actual)) {
+                mismatches.add(value + " expected " + expectedValue + " but was " + actual);
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.darcytech.debezium.converter;
+
+import io.debezium.spi.converter.CustomConverter;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class MySqlDateTimeConverterTest {
+
+    private static final Duration MAX_TIME = Duration.ofSeconds(838 * 3600 + 59 * 60 + 59);
+
+    @Test
+    public void timeOutsideOneDayIsRenderedAsDuration() {
+        CustomConverter.Converter iso = register("TIME", 6, true);
+        assertEquals("17:29:04.12", iso.convert(Duration.ofSeconds(62944, 120_000_000)));
+        assertEquals("24:00:00", iso.convert(Duration.ofHours(24)));
+        assertEquals("100:00:00", iso.convert(Duration.ofHours(100)));
+        assertEquals("838:59:59", iso.convert(MAX_TIME));
+        assertEquals("-838:59:59", iso.convert(MAX_TIME.negated()));
+        assertEquals("-12:30:00", iso.convert(Duration.ofMinutes(-750)));
+        assertEquals("-00:00:01", iso.convert(Duration.ofSeconds(-1)));
+
+        CustomConverter.Converter millis = register("TIME", 3, true, "format.time", "HH:mm:ss.SSS");
+        assertEquals("100:00:00.000", millis.convert(Duration.ofHours(100)));
+        assertEquals("-838:59:59.000", millis.convert(MAX_TIME.negated()));
+    }
+
+    @Test
+    public void negativeFractionsAreNormalised() {
+        // Duration的纳秒部分总是正数，-0.5秒是seconds=-1、nano=500000000
+        CustomConverter.Converter iso = register("TIME", 6, true);
+        assertEquals("-00:00:00.5", iso.convert(Duration.ofMillis(-500)));
+        assertEquals("-23:59:59.999999999", iso.convert(Duration.ofSeconds(-86400, 1)));
+        assertEquals("-01:00:00.000001", iso.convert(Duration.ofSeconds(-3600, -1000)));
+        // adaptive_time_microseconds下Long是微秒
+        assertEquals("-00:00:00.5", iso.convert(-500_000L));
+        assertEquals("-00:50:00", iso.convert(-3_000_000_000L));
+
+        CustomConverter.Converter seconds = register("TIME", 0, true, "format.time", "HH:mm:ss");
+        assertEquals("-00:00:00", seconds.convert(Duration.ofMillis(-500)));
+        assertEquals("-23:59:59", seconds.convert(Duration.ofSeconds(-86400, 1)));
+
+        CustomConverter.Converter millis = register("TIME", 3, true, "format.time", "HH:mm:ss.SSS");
+        assertEquals("-00:00:00.500", millis.convert(Duration.ofMillis(-500)));
+        assertEquals("-23:59:59.999", millis.convert(Duration.ofSeconds(-86400, 1)));
+    }
+
+    @Test
+    public void epochOutputReadsDatetimeInItsZone() {
+        ZoneId zone = ZoneId.of("America/New_York");
+        LocalDateTime[] datetimes = {
+                LocalDateTime.of(2021, 1, 28, 17, 29, 4, 120_000_000),
+                // 夏令时开始时跳过的和结束时重复的墙上时间
+                LocalDateTime.of(2021, 3, 14, 2, 30),
+                LocalDateTime.of(2021, 11, 7, 1, 30, 0, 1_000),
+                // 1970年以前毫秒和微秒要向下取整
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 500_000_000),
+                // 超出时区索引的年份
+                LocalDateTime.of(2150, 7, 1, 12, 0, 0, 999_999_000),
+        };
+        CustomConverter.Converter millis = register("DATETIME", 6, true,
+                "output.mode", "epoch_millis", "format.timestamp.zone", zone.getId());
+        CustomConverter.Converter micros = register("DATETIME", 6, true,
+                "output.mode", "epoch_micros", "format.timestamp.zone", "UTC", "format.datetime.zone", zone.getId());
+        for (LocalDateTime datetime : datetimes) {
+            Instant instant = ZonedDateTime.ofLocal(datetime, zone, null).toInstant();
+            assertEquals(datetime.toString(), instant.toEpochMilli(), millis.convert(datetime));
+            assertEquals(datetime.toString(), epochMicros(instant), micros.convert(datetime));
+        }
+    }
+
+    @Test
+    public void epochOutputKeepsTimestampInstants() {
+        Instant[] instants = {
+                Instant.parse("2021-01-28T09:29:04.123456Z"),
+                Instant.parse("2021-11-07T05:30:00Z"),
+                Instant.parse("2021-11-07T06:30:00Z"),
+                Instant.parse("1969-12-31T23:59:59.999999Z"),
+                Instant.parse("2150-01-01T00:00:00.000001Z"),
+        };
+        CustomConverter.Converter millis = register("TIMESTAMP", 6, true,
+                "output.mode", "epoch_millis", "format.timestamp.zone", "America/New_York");
+        CustomConverter.Converter micros = register("TIMESTAMP", 6, true,
+                "output.mode", "epoch_micros", "format.timestamp.zone", "Asia/Shanghai");
+        for (Instant instant : instants) {
+            assertEquals(instant.toString(), instant.toEpochMilli(), millis.convert(instant.atZone(ZoneOffset.UTC)));
+            assertEquals(instant.toString(), epochMicros(instant), micros.convert(instant.atZone(ZoneOffset.UTC)));
+            // 快照阶段的TIMESTAMP是UTC的字符串
+            assertEquals(instant.toString(), instant.toEpochMilli(), millis.convert(instant.toString()));
+        }
+    }
+
+    @Test
+    public void compactTimeTruncatesLikeTheStringOutput() {
+        CustomConverter.Converter time = register("TIME", 6, true, "output.mode", "compact");
+        assertEquals(172904, time.convert(Duration.ofSeconds(62944, 120_000_000)));
+        assertEquals(-123000, time.convert(Duration.ofMinutes(-750)));
+        assertEquals(1000000, time.convert(Duration.ofHours(100)));
+        assertEquals(8385959, time.convert(MAX_TIME));
+        assertEquals(-8385959, time.convert(MAX_TIME.negated()));
+        // 负的小数秒向0截断，和HH:mm:ss输出的-00:00:00、-23:59:59一致
+        assertEquals(0, time.convert(Duration.ofMillis(-500)));
+        assertEquals(-235959, time.convert(Duration.ofSeconds(-86400, 1)));
+        assertEquals(0, time.convert(-500_000L));
+        assertEquals(-5000, time.convert(-3_000_000_000L));
+    }
+
+    @Test
+    public void compactDatetimeFloorsBefore1970() {
+        CustomConverter.Converter date = register("DATE", -1, true, "output.mode", "compact");
+        assertEquals(20210128, date.convert(LocalDate.of(2021, 1, 28)));
+        assertEquals(19691231, date.convert(-1));
+        assertEquals(10101, date.convert(LocalDate.of(1, 1, 1)));
+
+        CustomConverter.Converter seconds = register("DATETIME", 0, true, "output.mode", "compact");
+        CustomConverter.Converter millis = register("DATETIME", 3, true, "output.mode", "compact");
+        LocalDateTime datetime = LocalDateTime.of(2021, 1, 28, 17, 29, 4, 123_456_000);
+        assertEquals(20210128172904L, seconds.convert(datetime));
+        assertEquals(20210128172904123L, millis.convert(datetime));
+        LocalDateTime beforeEpoch = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 500_000_000);
+        assertEquals(19691231235959L, seconds.convert(beforeEpoch));
+        assertEquals(19691231235959500L, millis.convert(beforeEpoch));
+        // Debezium的DATETIME(3)是毫秒
+        assertEquals(19691231235959500L, millis.convert(-500L));
+    }
+
+    @Test
+    public void compactTimestampUsesTheWallClockInItsZone() {
+        CustomConverter.Converter timestamp = register("TIMESTAMP", 3, true,
+                "output.mode", "compact", "format.timestamp.zone", "America/New_York");
+        // 夏令时结束时01:30出现两次
+        assertEquals(20211107013000000L, timestamp.convert(Instant.parse("2021-11-07T05:30:00Z").atZone(ZoneOffset.UTC)));
+        assertEquals(20211107013000000L, timestamp.convert(Instant.parse("2021-11-07T06:30:00Z").atZone(ZoneOffset.UTC)));
+        assertEquals(20210314030000250L, timestamp.convert("2021-03-14T07:00:00.25Z"));
+        assertEquals(19691231185959999L, timestamp.convert(Instant.parse("1969-12-31T23:59:59.999Z").atZone(ZoneOffset.UTC)));
+    }
+
+    @Test
+    public void defaultValueIsTheOutermostWrapper() {
+        LocalDateTime defaultValue = LocalDateTime.of(2021, 1, 28, 17, 29, 4);
+        Properties props = new Properties();
+        props.setProperty("cache.size", "1024");
+        MySqlDateTimeConverter converter = new MySqlDateTimeConverter();
+        converter.configure(props);
+        // 另一列先把同一个值放进共享的缓存
+        CustomConverter.Converter other = new TestColumn("db.test", "created", "DATETIME", 0, false, null)
+                .register(converter);
+        assertEquals("2021-01-28T17:29:04", other.convert(LocalDateTime.of(2021, 1, 28, 17, 29, 4)));
+        SchemaBuilder[] schema = new SchemaBuilder[1];
+        CustomConverter.Converter[] registered = new CustomConverter.Converter[1];
+        converter.converterFor(new TestColumn("db.test", "updated", "DATETIME", 0, false, defaultValue), (s, c) -> {
+            schema[0] = s;
+            registered[0] = c;
+        });
+        CustomConverter.Converter datetime = registered[0];
+        Object convertedDefault = schema[0].defaultValue();
+        assertEquals("2021-01-28T17:29:04", convertedDefault);
+        // Debezium会用同一个converter再转换一次默认值，SchemaBuilder只接受同一个实例，不能是缓存里相等的对象
+        schema[0].defaultValue(datetime.convert(LocalDateTime.of(2021, 1, 28, 17, 29, 4)));
+        assertSame(convertedDefault, datetime.convert(defaultValue));
+        // NOT NULL的列收到的null和零值日期都输出默认值
+        assertSame(convertedDefault, datetime.convert(null));
+        assertSame(convertedDefault, datetime.convert("0000-00-00 00:00:00"));
+        assertEquals("2021-01-28T17:29:05", datetime.convert(LocalDateTime.of(2021, 1, 28, 17, 29, 5)));
+    }
+
+    @Test
+    public void zeroDatesFollowTheMode() {
+        CustomConverter.Converter optional = register("DATETIME", 0, true);
+        assertNull(optional.convert("0000-00-00 00:00:00"));
+        assertNull(optional.convert(null));
+        CustomConverter.Converter required = register("DATETIME", 0, false);
+        assertEquals("1970-01-01T00:00:00", required.convert("0000-00-00 00:00:00"));
+        assertEquals("1970-01-01T00:00:00", required.convert(null));
+
+        CustomConverter.Converter epoch = register("DATE", -1, true, "zero.date.mode", "epoch");
+        assertEquals("1970-01-01", epoch.convert("0000-00-00"));
+        assertNull(epoch.convert(null));
+        // epoch模式下零值日期不使用列的默认值
+        CustomConverter.Converter epochDefault = register(
+                new TestColumn("db.test", "created", "DATE", -1, false, LocalDate.of(2021, 1, 28)),
+                "zero.date.mode", "epoch");
+        assertEquals("1970-01-01", epochDefault.convert("0000-00-00"));
+        assertEquals("2021-01-28", epochDefault.convert(LocalDate.of(2021, 1, 28)));
+
+        CustomConverter.Converter literalDate = register("DATE", -1, true, "zero.date.mode", "literal");
+        assertEquals("0000-00-00", literalDate.convert("0000-00-00"));
+        CustomConverter.Converter literalDatetime = register(
+                new TestColumn("db.test", "updated", "DATETIME", 0, false, LocalDateTime.of(2021, 1, 28, 0, 0)),
+                "zero.date.mode", "literal");
+        assertEquals("0000-00-00 00:00:00", literalDatetime.convert("0000-00-00 00:00:00"));
+        assertEquals("0000-00-00 00:00:00", literalDatetime.convert(null));
+    }
+
+    @Test
+    public void timestampEpochZeroIsAZeroDate() {
+        CustomConverter.Converter optional = register("TIMESTAMP", 0, true);
+        assertNull(optional.convert(Instant.EPOCH.atZone(ZoneOffset.UTC)));
+        assertEquals("1970-01-01T00:00:01", optional.convert(Instant.ofEpochSecond(1).atZone(ZoneOffset.UTC)));
+        CustomConverter.Converter required = register("TIMESTAMP", 0, false, "zero.date.mode", "literal");
+        assertEquals("0000-00-00 00:00:00", required.convert(Instant.EPOCH.atZone(ZoneOffset.UTC)));
+        // DATETIME没有这个限制，1970-01-01 00:00:00是正常的值
+        CustomConverter.Converter datetime = register("DATETIME", 0, true);
+        assertEquals("1970-01-01T00:00:00", datetime.convert(LocalDateTime.of(1970, 1, 1, 0, 0)));
+    }
+
+    private static CustomConverter.Converter register(String type, int length, boolean optional, String... settings) {
+        return register(new TestColumn("db.test", type.toLowerCase() + "_column", type, length, optional, null),
+                settings);
+    }
+
+    private static CustomConverter.Converter register(TestColumn column, String... settings) {
+        Properties props = new Properties();
+        for (int i = 0; i < settings.length; i += 2) {
+            props.setProperty(settings[i], settings[i + 1]);
+        }
+        MySqlDateTimeConverter converter = new MySqlDateTimeConverter();
+        converter.configure(props);
+        return column.register(converter);
+    }
+
+    private static long epochMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+}
@@ -0,0 +1,40 @@
+package com.darcytech.debezium.converter;
+
+import org.junit.Test;
+
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TemporalCacheTest {
+
+    @Test
+    public void keysDoNotCollideAcrossFormatsAndJdbcInputs() {
+        TemporalCache cache = new TemporalCache(1024);
+        // 0x8000和0x18000以前会被截成同一个id
+        cache.put(0x8000, false, 1611854944, 0, "datetime");
+        cache.put(0x18000, false, 1611854944, 0, "timestamp");
+        cache.put(0x8000, true, 1611854944, 0, "jdbc");
+
+        assertEquals("datetime", cache.get(0x8000, false, 1611854944, 0));
+        assertEquals("timestamp", cache.get(0x18000, false, 1611854944, 0));
+        assertEquals("jdbc", cache.get(0x8000, true, 1611854944, 0));
+        assertNull(cache.get(0x18000, true, 1611854944, 0));
+        assertNull(cache.get(0x8000, false, 1611854944, 1));
+    }
+
+    @Test
+    public void columnFormatIdsAreUnique() {
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        long first = new ColumnFormat(formatter, null).id;
+        long previous = first;
+        for (int i = 0; i < 0x10000; i++) {
+            long id = new ColumnFormat(formatter, null).id;
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertTrue(first >= 0x8000);
+    }
+}
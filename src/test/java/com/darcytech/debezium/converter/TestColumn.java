@@ -0,0 +1,96 @@
+package com.darcytech.debezium.converter;
+
+import io.debezium.spi.converter.CustomConverter;
+import io.debezium.spi.converter.RelationalColumn;
+
+import java.util.OptionalInt;
+
+/**
+ * 测试用的列，只提供converterFor用到的属性
+ */
+final class TestColumn implements RelationalColumn {
+
+    private final String table;
+    private final String name;
+    private final String type;
+    private final int length;
+    private final boolean optional;
+    private final Object defaultValue;
+
+    TestColumn(String table, String name, String type, int length, boolean optional, Object defaultValue) {
+        this.table = table;
+        this.name = name;
+        this.type = type;
+        this.length = length;
+        this.optional = optional;
+        this.defaultValue = defaultValue;
+    }
+
+    TestColumn(String type, int length) {
+        this("db.test", type.toLowerCase() + "_column", type, length, true, null);
+    }
+
+    /**
+     * 返回converterFor注册的converter，类型不支持时返回null
+     */
+    CustomConverter.Converter register(MySqlDateTimeConverter converter) {
+        CustomConverter.Converter[] registered = new CustomConverter.Converter[1];
+        converter.converterFor(this, (schema, c) -> registered[0] = c);
+        return registered[0];
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String dataCollection() {
+        return table;
+    }
+
+    @Override
+    public int jdbcType() {
+        return 0;
+    }
+
+    @Override
+    public int nativeType() {
+        return 0;
+    }
+
+    @Override
+    public String typeName() {
+        return type;
+    }
+
+    @Override
+    public String typeExpression() {
+        return type;
+    }
+
+    @Override
+    public OptionalInt length() {
+        return length < 0 ? OptionalInt.empty() : OptionalInt.of(length);
+    }
+
+    @Override
+    public OptionalInt scale() {
+        return OptionalInt.empty();
+    }
+
+    @Override
+    public boolean isOptional() {
+        return optional;
+    }
+
+    @Override
+    public Object defaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public boolean hasDefaultValue() {
+        return defaultValue != null;
+    }
+}
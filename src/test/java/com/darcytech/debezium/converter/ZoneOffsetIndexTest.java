@@ -0,0 +1,124 @@
+package com.darcytech.debezium.converter;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * 预先展开的切换点必须和ZoneRules给出的偏移量一致，特别是夏令时开始时跳过的和结束时重复的那段时间
+ */
+public class ZoneOffsetIndexTest {
+
+    private static final String[] ZONES = {
+            "America/New_York", "Europe/London", "Australia/Lord_Howe", "Asia/Shanghai", "America/Sao_Paulo"
+    };
+    private static final long FIRST = Instant.parse("1970-01-01T00:00:00Z").getEpochSecond();
+    private static final long END = Instant.parse("2101-01-01T00:00:00Z").getEpochSecond();
+
+    @Test
+    public void offsetAtMatchesZoneRulesAroundEveryTransition() {
+        for (String zone : ZONES) {
+            ZoneRules rules = ZoneId.of(zone).getRules();
+            ZoneOffsetIndex index = ZoneOffsetIndex.build(ZoneId.of(zone), "1970..2100");
+            for (ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(FIRST));
+                 transition != null && transition.toEpochSecond() < END;
+                 transition = rules.nextTransition(transition.getInstant())) {
+                long second = transition.toEpochSecond();
+                for (long epochSecond : new long[]{second - 3600, second - 1, second, second + 1, second + 3600}) {
+                    assertEquals(zone + " " + Instant.ofEpochSecond(epochSecond), expectedOffset(rules, epochSecond),
+                            index.offsetAt(epochSecond));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void offsetAtLocalUsesTheOffsetBeforeGapsAndOverlaps() {
+        for (String zone : ZONES) {
+            ZoneId zoneId = ZoneId.of(zone);
+            ZoneRules rules = zoneId.getRules();
+            ZoneOffsetIndex index = ZoneOffsetIndex.build(zoneId, "1970..2100");
+            for (ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(FIRST));
+                 transition != null && transition.toEpochSecond() < END;
+                 transition = rules.nextTransition(transition.getInstant())) {
+                // 跳过或者重复的那段墙上时间，以及前后各一秒
+                long before = transition.getDateTimeBefore().toEpochSecond(ZoneOffset.UTC);
+                long after = transition.getDateTimeAfter().toEpochSecond(ZoneOffset.UTC);
+                long from = Math.min(before, after) - 1;
+                long to = Math.max(before, after) + 1;
+                for (long localSecond = from; localSecond <= to; localSecond += Math.max(1, (to - from) / 16)) {
+                    assertLocal(zoneId, index, localSecond);
+                }
+                assertLocal(zoneId, index, to);
+            }
+        }
+    }
+
+    @Test
+    public void randomOrderMatchesZoneRules() {
+        // 打乱顺序，避免只验证到记住上一次区间的那条路径
+        Random random = new Random(20210128);
+        for (String zone : ZONES) {
+            ZoneId zoneId = ZoneId.of(zone);
+            ZoneOffsetIndex index = ZoneOffsetIndex.build(zoneId, "1970..2100");
+            for (int i = 0; i < 20_000; i++) {
+                long epochSecond = FIRST + (long) (random.nextDouble() * (END - FIRST));
+                assertEquals(zone + " " + Instant.ofEpochSecond(epochSecond),
+                        expectedOffset(zoneId.getRules(), epochSecond), index.offsetAt(epochSecond));
+                assertLocal(zoneId, index, epochSecond);
+            }
+        }
+    }
+
+    @Test
+    public void outsideTheYearRangeIsUnknown() {
+        ZoneOffsetIndex index = ZoneOffsetIndex.build(ZoneId.of("America/New_York"), "2000..2001");
+        long first = Instant.parse("2000-01-01T00:00:00Z").getEpochSecond();
+        long end = Instant.parse("2002-01-01T00:00:00Z").getEpochSecond();
+        assertEquals(ZoneOffsetIndex.UNKNOWN, index.offsetAt(first - 1));
+        assertEquals(-5 * 3600, index.offsetAt(first));
+        assertEquals(-5 * 3600, index.offsetAt(end - 1));
+        assertEquals(ZoneOffsetIndex.UNKNOWN, index.offsetAt(end));
+        assertEquals(ZoneOffsetIndex.UNKNOWN, index.offsetAtLocal(Long.MIN_VALUE));
+        assertEquals(ZoneOffsetIndex.UNKNOWN, index.offsetAtLocal(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void fixedOffsetsHaveNoBounds() {
+        ZoneOffsetIndex index = ZoneOffsetIndex.of(ZoneId.of("UTC+8"), "1970..2100");
+        for (long second : new long[]{Long.MIN_VALUE, -1, 0, 4102444800L, Long.MAX_VALUE - 1}) {
+            assertEquals(8 * 3600, index.offsetAt(second));
+            assertEquals(8 * 3600, index.offsetAtLocal(second));
+        }
+    }
+
+    @Test
+    public void illegalYearRangesAreRejected() {
+        ZoneId zoneId = ZoneId.of("America/New_York");
+        assertThrows(IllegalArgumentException.class, () -> ZoneOffsetIndex.build(zoneId, "2000"));
+        assertThrows(IllegalArgumentException.class, () -> ZoneOffsetIndex.build(zoneId, "2001..2000"));
+    }
+
+    private static int expectedOffset(ZoneRules rules, long epochSecond) {
+        return rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+    }
+
+    /**
+     * ZonedDateTime.ofLocal把跳过的时间往后挪，重复的时间取较早的偏移量，两种情况换算出的时刻都是墙上时间减去切换前的偏移量
+     */
+    private static void assertLocal(ZoneId zoneId, ZoneOffsetIndex index, long localSecond) {
+        LocalDateTime local = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+        long expected = localSecond - ZonedDateTime.ofLocal(local, zoneId, null).toEpochSecond();
+        assertEquals(zoneId + " " + local, expected, index.offsetAtLocal(localSecond));
+    }
+}